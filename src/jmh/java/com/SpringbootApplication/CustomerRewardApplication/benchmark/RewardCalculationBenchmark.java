@@ -0,0 +1,118 @@
+package com.SpringbootApplication.CustomerRewardApplication.benchmark;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRuleSet;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores a batch of transactions with the reward rules.
+ *
+ * The primitive variants are the engine's own cost; divide {@code transactions} by the score to get
+ * transactions per second on one core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardCalculationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int transactions;
+
+    private RewardRules standardRules;
+    private RewardRuleSet standardRuleSet;
+    private RewardRules versionedRules;
+    private List<Transaction> transactionList;
+    private long[] amountCents;
+    private long[] epochDays;
+
+    @Setup
+    public void setup() {
+        standardRules = RewardRules.standard();
+        standardRuleSet = standardRules.ruleSetOn(0);
+        // Four yearly versions with three to five tiers
+        versionedRules = new RewardRules(Arrays.asList(
+                new RewardRuleSet(LocalDate.of(2023, 1, 1), new long[]{5_000, 10_000, 50_000}, new long[]{1, 2, 3}),
+                new RewardRuleSet(LocalDate.of(2024, 1, 1), new long[]{2_500, 5_000, 10_000, 50_000}, new long[]{1, 2, 3, 4}),
+                new RewardRuleSet(LocalDate.of(2025, 1, 1), new long[]{5_000, 10_000}, new long[]{1, 2}),
+                new RewardRuleSet(LocalDate.of(2026, 1, 1), new long[]{1_000, 5_000, 10_000, 20_000, 50_000}, new long[]{1, 2, 3, 4, 5})));
+
+        Random random = new Random(42);
+        long firstDay = LocalDate.of(2023, 1, 1).toEpochDay();
+        transactionList = new ArrayList<>(transactions);
+        amountCents = new long[transactions];
+        epochDays = new long[transactions];
+        for (int i = 0; i < transactions; i++) {
+            long cents = random.nextInt(30000);
+            long epochDay = firstDay + random.nextInt(4 * 365);
+            transactionList.add(new Transaction((long) i, (long) (i % 1000),
+                    Timestamp.valueOf(LocalDate.ofEpochDay(epochDay).atTime(12, 0)), cents / 100.0));
+            amountCents[i] = cents;
+            epochDays[i] = epochDay;
+        }
+    }
+
+    /**
+     * The shape of the original calculateMonthlyRewards: a stream over entities.
+     */
+    @Benchmark
+    public long monthlyRewardsStream() {
+        return transactionList.stream()
+                .mapToLong(transaction -> standardRules.points(transaction.getTransactionAmount(), transaction.getTransactionDate()))
+                .sum();
+    }
+
+    @Benchmark
+    public long monthlyRewardsLoop() {
+        long points = 0;
+        for (Transaction transaction : transactionList) {
+            points += standardRules.points(transaction.getTransactionAmount(), transaction.getTransactionDate());
+        }
+        return points;
+    }
+
+    /**
+     * One rule version over amounts in cents, without entity indirection.
+     */
+    @Benchmark
+    public long monthlyRewardsPrimitive() {
+        long points = 0;
+        for (long cents : amountCents) {
+            points += standardRuleSet.points(cents);
+        }
+        return points;
+    }
+
+    /**
+     * Picks the version by date for every transaction, as scoring history does.
+     */
+    @Benchmark
+    public long versionedRulesPrimitive() {
+        long points = 0;
+        for (int i = 0; i < amountCents.length; i++) {
+            points += versionedRules.points(amountCents[i], epochDays[i]);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,81 @@
+package com.SpringbootApplication.CustomerRewardApplication.benchmark;
+
+import com.SpringbootApplication.CustomerRewardApplication.CustomerRewardApplication;
+import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code getRewardsByCustomerId} against the in-memory H2 database, seeded with
+ * {@code customers * transactionsPerCustomer} rows spread over the last six months.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RewardsLookupBenchmark {
+
+    @Param({"10000"})
+    private int customers;
+
+    @Param({"10", "100"})
+    private int transactionsPerCustomer;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private RewardsService rewardsService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SpringApplication application = new SpringApplication(CustomerRewardApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.com.SpringbootApplication=WARN",
+                "--rewards.cache.enabled=" + cacheEnabled);
+
+        long rows = (long) customers * transactionsPerCustomer;
+        context.getBean(JdbcTemplate.class).update(
+                "INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                        + "SELECT X, MOD(X, ?), DATEADD('MINUTE', -MOD(X * 7919, 262800), CURRENT_TIMESTAMP), "
+                        + "MOD(X * 31, 25000) / 100.0 FROM SYSTEM_RANGE(1, ?)", customers, rows);
+        context.getBean(JdbcTemplate.class).execute("ANALYZE TABLE TRANSACTION");
+        rewardsService = context.getBean(RewardsService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RewardsDTO getRewardsByCustomerId() {
+        return rewardsService.getRewardsByCustomerId((long) ThreadLocalRandom.current().nextInt(customers));
+    }
+}
@@ -0,0 +1,69 @@
+package com.SpringbootApplication.CustomerRewardApplication.benchmark;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.mapper.TransactionMapper;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips one transaction DTO -> entity -> DTO, as the write paths do, with ModelMapper
+ * and with the hand-written {@link TransactionMapper}. Both map the same DTO and the entity they built from it,
+ * with the ID a save would assign, and both results go to the {@link Blackhole}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMappingBenchmark {
+
+    private static final Long SAVED_TRANSACTION_ID = 1L;
+
+    private ModelMapper modelMapper;
+    private TransactionDTO transactionDTO;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        transactionDTO = TransactionDTO.builder()
+                .customerId(103L)
+                .transactionAmount(120.30)
+                .transactionDate(new Date())
+                .build();
+    }
+
+    @Benchmark
+    public void modelMapper(Blackhole blackhole) {
+        Transaction transaction = modelMapper.map(transactionDTO, Transaction.class);
+        transaction.setTransactionDate(new Timestamp(transactionDTO.getTransactionDate().getTime()));
+        transaction.setTransactionId(SAVED_TRANSACTION_ID);
+        blackhole.consume(transaction);
+        TransactionDTO savedDTO = modelMapper.map(transaction, TransactionDTO.class);
+        savedDTO.setTransactionDate(new Date(transaction.getTransactionDate().getTime()));
+        blackhole.consume(savedDTO);
+    }
+
+    @Benchmark
+    public void handWritten(Blackhole blackhole) {
+        Transaction transaction = TransactionMapper.toEntity(transactionDTO);
+        transaction.setTransactionId(SAVED_TRANSACTION_ID);
+        blackhole.consume(transaction);
+        blackhole.consume(TransactionMapper.toDto(transaction));
+    }
+}
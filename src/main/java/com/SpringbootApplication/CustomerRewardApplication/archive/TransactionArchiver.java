@@ -0,0 +1,111 @@
+package com.SpringbootApplication.CustomerRewardApplication.archive;
+
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Monthly roll-over of TRANSACTION into TRANSACTION_ARCHIVE.
+ *
+ * TRANSACTION holds the hot partition: the current month and the {@code rewards.archive.hot-months} months
+ * before it, which covers the three-month rewards window and the current leaderboard quarter. Older months
+ * are moved to the archive in chunks of {@code rewards.archive.chunk-size} rows, each chunk copied and
+ * deleted in one transaction, so readers see every row in exactly one of the two tables. The same transaction
+ * raises the rewards versions of the customers whose rows it moves.
+ */
+@Component
+public class TransactionArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    // The rewards window reaches three full months back
+    private static final int MIN_HOT_MONTHS = 3;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiveRepository archiveRepository;
+    private final RewardsVersionService rewardsVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final RewardsMetrics rewardsMetrics;
+    private final boolean enabled;
+    private final int hotMonths;
+    private final int chunkSize;
+
+    @Autowired
+    public TransactionArchiver(TransactionRepository transactionRepository,
+                               TransactionArchiveRepository archiveRepository,
+                               RewardsVersionService rewardsVersionService,
+                               PlatformTransactionManager transactionManager,
+                               RewardsMetrics rewardsMetrics,
+                               @Value("${rewards.archive.enabled:true}") boolean enabled,
+                               @Value("${rewards.archive.hot-months:3}") int hotMonths,
+                               @Value("${rewards.archive.chunk-size:1000}") int chunkSize) {
+        if (hotMonths < MIN_HOT_MONTHS) {
+            throw new IllegalArgumentException("rewards.archive.hot-months must be at least " + MIN_HOT_MONTHS
+                    + " to cover the rewards window, got " + hotMonths);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("rewards.archive.chunk-size must be positive, got " + chunkSize);
+        }
+        this.transactionRepository = transactionRepository;
+        this.archiveRepository = archiveRepository;
+        this.rewardsVersionService = rewardsVersionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rewardsMetrics = rewardsMetrics;
+        this.enabled = enabled;
+        this.hotMonths = hotMonths;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Runs the roll-over after the month has changed.
+     */
+    @Scheduled(cron = "${rewards.archive.cron:0 15 0 1 * *}")
+    public void rollOver() {
+        if (enabled) {
+            archive(YearMonth.now());
+        }
+    }
+
+    /**
+     * Moves transactions dated before the hot partition of {@code currentMonth} to the archive.
+     *
+     * @param currentMonth the month the hot partition is relative to
+     * @return the number of transactions moved
+     */
+    public long archive(YearMonth currentMonth) {
+        YearMonth firstHotMonth = currentMonth.minusMonths(hotMonths);
+        Date cutoff = Date.from(firstHotMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        long moved = 0;
+        long afterId = Long.MIN_VALUE;
+        List<Long> chunk;
+        while (!(chunk = transactionRepository.findIdsDatedBefore(cutoff, afterId, PageRequest.of(0, chunkSize))).isEmpty()) {
+            List<Long> ids = chunk;
+            Integer deleted = transactionTemplate.execute(status -> {
+                archiveRepository.copyFromTransactions(ids);
+                rewardsVersionService.raise(transactionRepository.findCustomerIdsByTransactionIdIn(ids));
+                return transactionRepository.deleteAllByTransactionIdIn(ids);
+            });
+            moved += deleted == null ? 0 : deleted;
+            afterId = ids.get(ids.size() - 1);
+        }
+        rewardsMetrics.recordTransactionsArchived(moved);
+        logger.info("Archived {} transactions dated before {}", moved, firstHotMonth);
+        return moved;
+    }
+}
@@ -0,0 +1,189 @@
+package com.SpringbootApplication.CustomerRewardApplication.cache;
+
+import com.SpringbootApplication.CustomerRewardApplication.event.RewardsVersionsChangedEvent;
+import com.SpringbootApplication.CustomerRewardApplication.event.TransactionsSavedEvent;
+import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, in-process cache of {@link RewardsDTO} per customer.
+ *
+ * Entries are keyed by customer and by the month the rewards window was computed in, so a result is never
+ * served once the window has shifted. Entries for the next month can be computed ahead of the rollover; they
+ * are kept until {@code ttl} after that month starts. Writes for a customer invalidate its entries for this
+ * month and the next after commit, as do raised rewards versions, and entries of past months are dropped at
+ * month rollover. Hit, miss and eviction counts are published as {@code cache.*} metrics with the tag
+ * {@code cache=rewards}.
+ */
+@Component
+public class RewardsCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardsCache.class);
+
+    private final boolean enabled;
+    private final Cache<Key, RewardsDTO> cache;
+
+    @Autowired
+    public RewardsCache(@Value("${rewards.cache.enabled:true}") boolean enabled,
+                        @Value("${rewards.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${rewards.cache.ttl:5m}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        // Caffeine evicts by W-TinyLFU once the size bound is reached
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new WriteExpiry(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "rewards");
+    }
+
+    /**
+     * Returns the cached rewards of a customer for the given month, computing them on a miss.
+     * Exceptions thrown by the loader are propagated and nothing is cached.
+     */
+    public RewardsDTO get(Long customerId, YearMonth month, Function<Long, RewardsDTO> loader) {
+        if (!enabled) {
+            return loader.apply(customerId);
+        }
+        return cache.get(new Key(customerId, month), key -> loader.apply(key.customerId));
+    }
+
+    /**
+     * Returns the cached rewards of a customer for the given month without computing them, or {@code null}.
+     */
+    public RewardsDTO getIfPresent(Long customerId, YearMonth month) {
+        return enabled ? cache.getIfPresent(new Key(customerId, month)) : null;
+    }
+
+    /**
+     * Returns the customers with an entry for the given month.
+     */
+    public Set<Long> getCustomerIds(YearMonth month) {
+        Set<Long> customerIds = new HashSet<>();
+        for (Key key : cache.asMap().keySet()) {
+            if (key.month.equals(month)) {
+                customerIds.add(key.customerId);
+            }
+        }
+        return customerIds;
+    }
+
+    /**
+     * Invalidates the current and the next month's entries of the given customers.
+     */
+    public void invalidate(Collection<Long> customerIds) {
+        YearMonth current = YearMonth.now();
+        List<Key> keys = new ArrayList<>(customerIds.size() * 2);
+        for (Long customerId : customerIds) {
+            keys.add(new Key(customerId, current));
+            keys.add(new Key(customerId, current.plusMonths(1)));
+        }
+        cache.invalidateAll(keys);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionsSaved(TransactionsSavedEvent event) {
+        invalidate(event.getCustomerIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRewardsVersionsChanged(RewardsVersionsChangedEvent event) {
+        invalidate(event.getCustomerIds());
+    }
+
+    /**
+     * Drops entries computed for earlier months once the rewards window has moved on.
+     */
+    @Scheduled(cron = "${rewards.cache.rollover-cron:0 0 0 1 * *}")
+    public void evictPastMonths() {
+        YearMonth current = YearMonth.now();
+        int before = cache.asMap().size();
+        cache.asMap().keySet().removeIf(key -> key.month.isBefore(current));
+        logger.info("Evicted {} cached rewards at month rollover to {}", before - cache.asMap().size(), current);
+    }
+
+    /**
+     * Expires entries {@code ttl} after they are written, or {@code ttl} after their month starts when they
+     * were computed ahead of it.
+     */
+    private static final class WriteExpiry implements Expiry<Key, RewardsDTO> {
+        private final Duration ttl;
+
+        private WriteExpiry(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        @Override
+        public long expireAfterCreate(Key key, RewardsDTO rewards, long currentTime) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime windowStart = key.month.atDay(1).atStartOfDay();
+            Duration timeToLive = windowStart.isAfter(now) ? Duration.between(now, windowStart).plus(ttl) : ttl;
+            return timeToLive.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, RewardsDTO rewards, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, rewards, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, RewardsDTO rewards, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static final class Key {
+        private final Long customerId;
+        private final YearMonth month;
+
+        private Key(Long customerId, YearMonth month) {
+            this.customerId = customerId;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return customerId.equals(other.customerId) && month.equals(other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customerId, month);
+        }
+    }
+}
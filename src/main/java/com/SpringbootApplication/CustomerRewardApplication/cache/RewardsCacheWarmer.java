@@ -0,0 +1,93 @@
+package com.SpringbootApplication.CustomerRewardApplication.cache;
+
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the rewards cache for the next month shortly before the month changes.
+ *
+ * Every customer's rewards window shifts at midnight on the 1st, so without this every lookup right after
+ * the rollover would miss the cache at once. The warm-up computes the next month's rewards ahead of time
+ * under the next month's cache keys; lookups switch to those keys, all together, when the month changes.
+ * Customers with rewards cached for the current month come first, then the customers with the most
+ * transactions in the next window, up to {@code rewards.cache.warmup.max-customers} in total. Keep that well
+ * below {@code rewards.cache.maximum-size}, since both months are cached until the rollover.
+ */
+@Component
+public class RewardsCacheWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardsCacheWarmer.class);
+
+    private final RewardsService rewardsService;
+    private final RewardsCache rewardsCache;
+    private final TransactionRepository transactionRepository;
+    private final RewardsMetrics rewardsMetrics;
+    private final boolean enabled;
+    private final int maxCustomers;
+
+    @Autowired
+    public RewardsCacheWarmer(RewardsService rewardsService,
+                              RewardsCache rewardsCache,
+                              TransactionRepository transactionRepository,
+                              RewardsMetrics rewardsMetrics,
+                              @Value("${rewards.cache.enabled:true}") boolean cacheEnabled,
+                              @Value("${rewards.cache.warmup.enabled:true}") boolean enabled,
+                              @Value("${rewards.cache.warmup.max-customers:5000}") int maxCustomers) {
+        this.rewardsService = rewardsService;
+        this.rewardsCache = rewardsCache;
+        this.transactionRepository = transactionRepository;
+        this.rewardsMetrics = rewardsMetrics;
+        this.enabled = cacheEnabled && enabled;
+        this.maxCustomers = maxCustomers;
+    }
+
+    /**
+     * Runs the warm-up before midnight on the last day of the month.
+     */
+    @Scheduled(cron = "${rewards.cache.warmup.cron:0 45 23 L * *}")
+    public void warmUpNextMonth() {
+        if (enabled) {
+            warmUp(YearMonth.now().plusMonths(1));
+        }
+    }
+
+    /**
+     * Computes and caches the rewards of {@code month} for the customers most likely to be looked up then.
+     *
+     * @param month the month the rewards window is computed for
+     * @return the number of customers whose rewards were cached
+     */
+    public int warmUp(YearMonth month) {
+        long started = System.nanoTime();
+        Set<Long> customerIds = new LinkedHashSet<>(rewardsCache.getCustomerIds(month.minusMonths(1)));
+        if (customerIds.size() < maxCustomers) {
+            Date windowStart = Date.from(month.minusMonths(3).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            customerIds.addAll(transactionRepository.findMostActiveCustomerIdsSince(windowStart,
+                    PageRequest.of(0, maxCustomers)));
+        }
+        List<Long> selected = customerIds.stream()
+                .limit(maxCustomers)
+                .collect(Collectors.toList());
+        int warmed = rewardsService.precomputeRewards(selected, month);
+        rewardsMetrics.recordCacheWarmedUp(warmed);
+        logger.info("Warmed up cached rewards of {} customers for {} in {} ms", warmed, month,
+                (System.nanoTime() - started) / 1_000_000);
+        return warmed;
+    }
+}
@@ -0,0 +1,75 @@
+package com.SpringbootApplication.CustomerRewardApplication.controller;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionTicketDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.service.AsyncIngestionService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * REST controller for asynchronous (write-behind) transaction ingestion.
+ *
+ * Provides endpoints to:
+ * - Submit transactions for saving in the background.
+ * - Check the outcome of a submission.
+ */
+@RestController
+@RequestMapping("/api/rewards/transactions/async")
+@ConditionalOnProperty(name = "rewards.ingest.async.enabled", havingValue = "true")
+public class AsyncIngestionController {
+
+    private final AsyncIngestionService asyncIngestionService;
+
+    /**
+     * Constructor-based injection of AsyncIngestionService.
+     *
+     * @param asyncIngestionService service queueing transactions for the background writer
+     */
+    @Autowired
+    public AsyncIngestionController(AsyncIngestionService asyncIngestionService) {
+        this.asyncIngestionService = asyncIngestionService;
+    }
+
+    /**
+     * Validates and accepts transactions for saving in the background.
+     *
+     * Returns 202 as soon as the transactions are journaled, with a Location header pointing at the ticket.
+     * Returns 429 with Retry-After when the ingestion queue is full.
+     *
+     * @param transactionDTOList the transactions to save
+     * @return a ResponseEntity containing the ingestion ticket as {@link IngestionTicketDTO}
+     */
+    @PostMapping
+    public ResponseEntity<IngestionTicketDTO> submit(@Valid @RequestBody @NotEmpty List<TransactionDTO> transactionDTOList) {
+        IngestionTicketDTO ticket = asyncIngestionService.submit(transactionDTOList);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{ticketId}")
+                        .buildAndExpand(ticket.getTicketId())
+                        .toUri())
+                .body(ticket);
+    }
+
+    /**
+     * Retrieves the status of an ingestion ticket.
+     *
+     * @param ticketId the ticket returned on submission
+     * @return a ResponseEntity containing the ticket as {@link IngestionTicketDTO}, or 404 if it is unknown
+     */
+    @GetMapping("/{ticketId}")
+    public ResponseEntity<IngestionTicketDTO> getTicket(@PathVariable String ticketId) {
+        return ResponseEntity.of(asyncIngestionService.getTicket(ticketId));
+    }
+}
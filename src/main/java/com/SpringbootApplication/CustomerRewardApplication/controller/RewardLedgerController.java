@@ -0,0 +1,45 @@
+package com.SpringbootApplication.CustomerRewardApplication.controller;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.LedgerReconcileReportDTO;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for maintaining the monthly reward ledger.
+ *
+ * Provides endpoints to:
+ * - Check the ledger for drift against the transaction history.
+ * - Rebuild the ledger from the transaction history.
+ */
+@RestController
+@RequestMapping("/api/rewards/ledger")
+public class RewardLedgerController {
+
+    private final RewardLedgerService rewardLedgerService;
+
+    /**
+     * Constructor-based injection of RewardLedgerService.
+     *
+     * @param rewardLedgerService service maintaining the monthly reward ledger
+     */
+    @Autowired
+    public RewardLedgerController(RewardLedgerService rewardLedgerService) {
+        this.rewardLedgerService = rewardLedgerService;
+    }
+
+    /**
+     * Recomputes the ledger from the transaction history and reports the rows that differ.
+     *
+     * @param repair whether drifted rows should be overwritten (backfill / rebuild)
+     * @return a ResponseEntity containing the reconciliation report as {@link LedgerReconcileReportDTO}
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<LedgerReconcileReportDTO> reconcile(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(rewardLedgerService.reconcile(repair));
+    }
+}
@@ -1,10 +1,17 @@
 package com.SpringbootApplication.CustomerRewardApplication.controller;
 
+import com.SpringbootApplication.CustomerRewardApplication.payload.BatchRewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionReportDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
 import com.SpringbootApplication.CustomerRewardApplication.service.RewardsServiceImpl;
+import com.SpringbootApplication.CustomerRewardApplication.service.TransactionStreamIngestService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,61 +19,108 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import java.util.Collections;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.context.request.WebRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 /**
  * REST controller for handling reward calculation and transaction operations.
  *
  * Provides endpoints to:
  * - Retrieve reward points for a single customer.
+ * - Retrieve reward points for a batch of customers.
  * - Save customer transactions.
+ * - Stream bulk transaction uploads.
  */
 @RestController
 @RequestMapping("/api/rewards")
 public class RewardsController {
 
     private final RewardsServiceImpl rewardsService;
+    private final TransactionStreamIngestService streamIngestService;
 
     /**
-     * Constructor-based injection of RewardsServiceImpl.
+     * Constructor-based injection of RewardsServiceImpl and TransactionStreamIngestService.
      *
-     * @param rewardsService service for reward calculation and transaction persistence
+     * @param rewardsService      service for reward calculation and transaction persistence
+     * @param streamIngestService service for streaming bulk uploads
      */
     @Autowired
-    public RewardsController(RewardsServiceImpl rewardsService) {
+    public RewardsController(RewardsServiceImpl rewardsService, TransactionStreamIngestService streamIngestService) {
         this.rewardsService = rewardsService;
+        this.streamIngestService = streamIngestService;
     }
 
     /**
      * Retrieves reward points for a single customer.
      *
      * This endpoint accepts a single customer ID as a path variable and returns the calculated rewards.
+     * The response carries a strong ETag; a request whose If-None-Match still matches is answered with
+     * 304 Not Modified before any rewards are computed.
      *
      * @param customerId the customer ID whose rewards are to be fetched
-     * @return a ResponseEntity containing the calculated rewards as {@link RewardsDTO}
+     * @param request    the current request, for its conditional headers
+     * @return a ResponseEntity containing the calculated rewards as {@link RewardsDTO}, or {@code null} when
+     * the request has been answered with 304
      */
     @GetMapping("/{customerId}")
-    public ResponseEntity<RewardsDTO> getRewards(@PathVariable Long customerId) {
-        RewardsDTO rewards = rewardsService.getRewardsByCustomerId(Collections.singletonList(customerId)).get(0);
-        return ResponseEntity.ok(rewards);
+    public ResponseEntity<RewardsDTO> getRewards(@PathVariable Long customerId, WebRequest request) {
+        Optional<RewardsDTO> modified = rewardsService.getRewardsIfModified(customerId, request::checkNotModified);
+        if (modified.isEmpty()) {
+            return null;
+        }
+        RewardsDTO rewards = modified.get();
+        if (rewards.getVersion() == null) {
+            return ResponseEntity.ok(rewards);
+        }
+        return ResponseEntity.ok().eTag(rewards.getVersion()).body(rewards);
+    }
+
+    /**
+     * Retrieves reward points for many customers at once.
+     *
+     * Customers are resolved with a fixed number of set-based queries per chunk of IDs. Unknown customers
+     * are listed in the response instead of failing the whole batch.
+     *
+     * @param customerIds the customer IDs whose rewards are to be fetched
+     * @return a ResponseEntity containing the rewards and the IDs that were not found as {@link BatchRewardsDTO}
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchRewardsDTO> getBatchRewards(@RequestBody @NotEmpty List<@NotNull Long> customerIds) {
+        return ResponseEntity.ok(rewardsService.getRewardsForCustomers(customerIds));
     }
 
     /**
      * Saves a list of customer transactions after validation.
      *
-     * This endpoint accepts a list of transaction data, validates and saves them in the repository.
+     * This endpoint accepts a list of transaction data, validates and saves them in the repository
+     * using batched inserts within a single transaction.
      *
      * @param transactionDTOList the list of transaction data to be saved
      * @return a ResponseEntity containing the list of saved transaction data
      */
     @PostMapping("/transactions")
     public ResponseEntity<List<TransactionDTO>> saveTransactions(@Valid @RequestBody List<TransactionDTO> transactionDTOList) {
-        List<TransactionDTO> savedTransactions = transactionDTOList.stream()
-                .map(rewardsService::saveTransaction)
-                .collect(Collectors.toList());
-
+        List<TransactionDTO> savedTransactions = rewardsService.saveTransactions(transactionDTOList);
         return ResponseEntity.ok(savedTransactions);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams a bulk upload of transactions in NDJSON or CSV format.
+     *
+     * Records are parsed and validated one at a time and saved in bounded batches, so the upload size
+     * does not affect memory use. Invalid records are skipped and listed in the report by line.
+     *
+     * @param contentType {@code application/x-ndjson} or {@code text/csv} (with a header row)
+     * @param body        the raw request body
+     * @return a ResponseEntity containing the per-line ingestion report as {@link IngestionReportDTO}
+     */
+    @PostMapping(value = "/transactions/stream", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<IngestionReportDTO> streamTransactions(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                 InputStream body) throws IOException {
+        return ResponseEntity.ok(streamIngestService.ingest(body, contentType));
+    }
+}
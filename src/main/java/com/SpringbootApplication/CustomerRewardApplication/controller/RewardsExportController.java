@@ -0,0 +1,100 @@
+package com.SpringbootApplication.CustomerRewardApplication.controller;
+
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsExportService;
+import com.SpringbootApplication.CustomerRewardApplication.service.TransactionStreamIngestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.YearMonth;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST controller for bulk rewards exports.
+ *
+ * Provides endpoints to:
+ * - Stream the rewards statement of every customer as CSV or NDJSON, optionally gzip-compressed.
+ */
+@RestController
+@RequestMapping("/api/rewards/export")
+public class RewardsExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final RewardsExportService rewardsExportService;
+
+    /**
+     * Constructor-based injection of RewardsExportService.
+     *
+     * @param rewardsExportService service streaming the statements from one ordered scan
+     */
+    @Autowired
+    public RewardsExportController(RewardsExportService rewardsExportService) {
+        this.rewardsExportService = rewardsExportService;
+    }
+
+    /**
+     * Streams the rewards of every customer for the last three months, one customer per line.
+     *
+     * The statements are written while TRANSACTION is scanned, so the response starts at once and its size
+     * does not affect memory use.
+     *
+     * @param accept         {@code application/x-ndjson} for NDJSON, anything else for CSV with a header row
+     * @param acceptEncoding {@code gzip} to compress the response
+     * @return a ResponseEntity streaming the statements
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportRewards(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(TransactionStreamIngestService.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        YearMonth month = YearMonth.now();
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                rewardsExportService.export(compressed, ndjson, month);
+                compressed.finish();
+            } else {
+                rewardsExportService.export(out, ndjson, month);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(ndjson ? TransactionStreamIngestService.APPLICATION_NDJSON : TransactionStreamIngestService.TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("rewards-" + month + (ndjson ? ".ndjson" : ".csv"))
+                        .build()
+                        .toString())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Whether the Accept-Encoding header lists gzip without ruling it out with {@code q=0}.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
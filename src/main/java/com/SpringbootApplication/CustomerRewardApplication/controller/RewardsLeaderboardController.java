@@ -0,0 +1,45 @@
+package com.SpringbootApplication.CustomerRewardApplication.controller;
+
+import com.SpringbootApplication.CustomerRewardApplication.leaderboard.RewardsLeaderboard;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardDTO;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the rewards leaderboard.
+ *
+ * Provides endpoints to:
+ * - Retrieve the customers with the most reward points this quarter.
+ */
+@RestController
+@RequestMapping("/api/rewards/leaderboard")
+public class RewardsLeaderboardController {
+
+    private final RewardsLeaderboard rewardsLeaderboard;
+
+    /**
+     * Constructor-based injection of RewardsLeaderboard.
+     *
+     * @param rewardsLeaderboard in-memory ranking of customers by points this quarter
+     */
+    @Autowired
+    public RewardsLeaderboardController(RewardsLeaderboard rewardsLeaderboard) {
+        this.rewardsLeaderboard = rewardsLeaderboard;
+    }
+
+    /**
+     * Retrieves the top customers by reward points earned in the current calendar quarter.
+     *
+     * @param limit the number of customers to return, at most {@code rewards.leaderboard.max-size}
+     * @return a ResponseEntity containing the ranking as {@link LeaderboardDTO}
+     */
+    @GetMapping
+    public ResponseEntity<LeaderboardDTO> getLeaderboard(@RequestParam(defaultValue = "100") @Min(1) int limit) {
+        return ResponseEntity.ok(rewardsLeaderboard.top(limit));
+    }
+}
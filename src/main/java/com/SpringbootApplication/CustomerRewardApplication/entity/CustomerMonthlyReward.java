@@ -0,0 +1,35 @@
+package com.SpringbootApplication.CustomerRewardApplication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Ledger row holding a customer's reward points for one calendar month.
+ *
+ * The month is stored in ISO format (e.g. {@code 2025-03}).
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(CustomerMonthlyRewardId.class)
+@Table(name = "CUSTOMER_MONTHLY_REWARD")
+public class CustomerMonthlyReward {
+    @Id
+    @Column(name = "CUSTOMER_ID")
+    private Long customerId;
+
+    @Id
+    @Column(name = "REWARD_MONTH", length = 7)
+    private String rewardMonth;
+
+    @Column(name = "POINTS")
+    private long points;
+
+    @Column(name = "TRANSACTION_COUNT")
+    private long transactionCount;
+}
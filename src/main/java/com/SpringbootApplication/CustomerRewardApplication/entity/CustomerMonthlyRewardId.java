@@ -0,0 +1,19 @@
+package com.SpringbootApplication.CustomerRewardApplication.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerMonthlyRewardId implements Serializable {
+    private Long customerId;
+    private String rewardMonth;
+}
@@ -0,0 +1,29 @@
+package com.SpringbootApplication.CustomerRewardApplication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Version of a customer's rewards, the base of their ETag.
+ *
+ * Raised by every write that can change what the customer's rewards or their lookup return: saved
+ * transactions, ledger repairs and archive moves. A customer without a row has never saved a transaction
+ * through the service and gets no ETag.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "CUSTOMER_REWARDS_VERSION")
+public class CustomerRewardsVersion {
+    @Id
+    @Column(name = "CUSTOMER_ID")
+    private Long customerId;
+
+    @Column(name = "VERSION")
+    private long version;
+}
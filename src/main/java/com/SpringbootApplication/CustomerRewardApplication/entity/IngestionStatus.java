@@ -0,0 +1,11 @@
+package com.SpringbootApplication.CustomerRewardApplication.entity;
+
+/**
+ * Lifecycle of an asynchronous ingestion ticket.
+ */
+public enum IngestionStatus {
+    // Journaled and queued, not yet written
+    ACCEPTED,
+    COMPLETED,
+    FAILED
+}
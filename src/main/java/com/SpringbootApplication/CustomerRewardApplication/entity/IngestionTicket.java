@@ -0,0 +1,40 @@
+package com.SpringbootApplication.CustomerRewardApplication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Outcome of an asynchronous ingestion ticket.
+ *
+ * A completed ticket is written in the same transaction as its transactions, so a ticket found here is
+ * never written again when the ingestion journal is replayed.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "INGESTION_TICKET")
+public class IngestionTicket {
+    @Id
+    @Column(name = "TICKET_ID", length = 36)
+    private String ticketId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", length = 16)
+    private IngestionStatus status;
+
+    @Column(name = "TRANSACTION_COUNT")
+    private int transactionCount;
+
+    @Column(name = "FINISHED_AT")
+    private Timestamp finishedAt;
+
+    @Column(name = "MESSAGE", length = 1000)
+    private String message;
+}
@@ -11,10 +11,14 @@ import java.sql.Timestamp;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name ="TRANSACTION")
+@Table(name ="TRANSACTION", indexes = {
+        // Leading CUSTOMER_ID serves per-customer lookups, TRANSACTION_DATE the window range and AMOUNT covers the scoring
+        @Index(name = "IDX_TRANSACTION_CUSTOMER_DATE", columnList = "CUSTOMER_ID, TRANSACTION_DATE, AMOUNT")
+})
 public class Transaction {
     @Id
-    @GeneratedValue( strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "TRANSACTION_SEQ", allocationSize = 50)
     @Column(name = "TRANSACTION_ID")
     private Long transactionId;
 
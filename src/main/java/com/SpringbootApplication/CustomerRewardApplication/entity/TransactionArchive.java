@@ -0,0 +1,36 @@
+package com.SpringbootApplication.CustomerRewardApplication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.sql.Timestamp;
+
+/**
+ * A transaction from a month that has left the rewards window, moved out of TRANSACTION by the monthly
+ * roll-over. Rows keep their original TRANSACTION_ID. Only CUSTOMER_ID is indexed: the archive is read to
+ * tell inactive customers from unknown ones and to reconcile the ledger, never to score a rewards window.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "TRANSACTION_ARCHIVE", indexes = {
+        @Index(name = "IDX_TRANSACTION_ARCHIVE_CUSTOMER", columnList = "CUSTOMER_ID")
+})
+public class TransactionArchive {
+    @Id
+    @Column(name = "TRANSACTION_ID")
+    private Long transactionId;
+
+    @Column(name = "CUSTOMER_ID")
+    private Long customerId;
+
+    @Column(name = "TRANSACTION_DATE")
+    private Timestamp transactionDate;
+
+    @Column(name = "AMOUNT")
+    private double transactionAmount;
+}
@@ -0,0 +1,21 @@
+package com.SpringbootApplication.CustomerRewardApplication.event;
+
+import java.util.Set;
+
+/**
+ * Published when the rewards versions of customers were raised without a transaction being saved, by a ledger
+ * repair or an archive move. Saved transactions raise them too, but announce it with
+ * {@link TransactionsSavedEvent}.
+ */
+public class RewardsVersionsChangedEvent {
+
+    private final Set<Long> customerIds;
+
+    public RewardsVersionsChangedEvent(Set<Long> customerIds) {
+        this.customerIds = Set.copyOf(customerIds);
+    }
+
+    public Set<Long> getCustomerIds() {
+        return customerIds;
+    }
+}
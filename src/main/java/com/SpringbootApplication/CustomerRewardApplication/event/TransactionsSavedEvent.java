@@ -0,0 +1,31 @@
+package com.SpringbootApplication.CustomerRewardApplication.event;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published by the rewards service whenever transactions have been written.
+ *
+ * Listeners that keep derived state (caches, indexes) should react after commit.
+ */
+public class TransactionsSavedEvent {
+
+    private final List<Transaction> transactions;
+
+    public TransactionsSavedEvent(List<Transaction> transactions) {
+        this.transactions = List.copyOf(transactions);
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public Set<Long> getCustomerIds() {
+        return transactions.stream()
+                .map(Transaction::getCustomerId)
+                .collect(Collectors.toSet());
+    }
+}
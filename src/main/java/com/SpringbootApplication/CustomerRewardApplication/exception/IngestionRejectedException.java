@@ -0,0 +1,20 @@
+package com.SpringbootApplication.CustomerRewardApplication.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when an asynchronous ingestion request cannot be accepted right now.
+ */
+public class IngestionRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IngestionRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,220 @@
+package com.SpringbootApplication.CustomerRewardApplication.leaderboard;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.event.TransactionsSavedEvent;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardEntryDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.CustomerRewardPoints;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * In-memory ranking of customers by reward points earned in the current calendar quarter.
+ *
+ * Totals are kept per customer and indexed in a skip list ordered by points, so the top K are read in O(K)
+ * without locking. The board is seeded at startup from a grouped aggregation over TRANSACTION, in parallel
+ * chunks of customers, and is then kept up to date from saved transactions after commit. A new, empty board
+ * starts with each quarter.
+ */
+@Component
+public class RewardsLeaderboard implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardsLeaderboard.class);
+
+    private final TransactionRepository transactionRepository;
+    private final RewardRules rewardRules;
+    private volatile Board board = new Board(quarterStart(LocalDate.now()));
+
+    @Value("${rewards.leaderboard.max-size:100}")
+    private int maxSize = 100;
+
+    @Value("${rewards.leaderboard.seed-chunk-size:1000}")
+    private int seedChunkSize = 1000;
+
+    @Value("${rewards.leaderboard.seed-parallelism:4}")
+    private int seedParallelism = 4;
+
+    @Autowired
+    public RewardsLeaderboard(TransactionRepository transactionRepository, RewardRules rewardRules) {
+        this.transactionRepository = transactionRepository;
+        this.rewardRules = rewardRules;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Returns the customers with the most points this quarter, highest first. Ties are ranked by customer ID.
+     *
+     * @param limit the number of customers wanted, capped at {@code rewards.leaderboard.max-size}
+     */
+    public LeaderboardDTO top(int limit) {
+        Board current = currentBoard();
+        int wanted = Math.min(limit, maxSize);
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(wanted);
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : current.ranking) {
+            if (entries.size() == wanted) {
+                break;
+            }
+            // An update adds the new entry before removing the old one, so a customer can briefly appear twice
+            if (seen.add(entry.customerId)) {
+                entries.add(LeaderboardEntryDTO.builder()
+                        .rank(entries.size() + 1)
+                        .customerId(entry.customerId)
+                        .points(entry.points)
+                        .build());
+            }
+        }
+        return LeaderboardDTO.builder()
+                .quarter(current.quarterStart.getYear() + "-Q" + current.quarterStart.get(IsoFields.QUARTER_OF_YEAR))
+                .entries(entries)
+                .build();
+    }
+
+    /**
+     * Replaces the board with one seeded from TRANSACTION for the current quarter.
+     *
+     * Transactions committed while the seed queries run may be missed, so this is meant for startup and
+     * for operators, not for regular use.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        Board seeded = new Board(quarterStart(LocalDate.now()));
+        Date from = toDate(seeded.quarterStart);
+        Date to = toDate(seeded.quarterStart.plusMonths(3));
+        List<Long> customerIds = transactionRepository.findAllCustomerIds();
+
+        ExecutorService executor = Executors.newFixedThreadPool(seedParallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int start = 0; start < customerIds.size(); start += seedChunkSize) {
+                List<Long> chunk = customerIds.subList(start, Math.min(start + seedChunkSize, customerIds.size()));
+                futures.add(executor.submit(() -> {
+                    for (CustomerRewardPoints points : transactionRepository.sumRewardPointsByCustomer(chunk, from, to)) {
+                        seeded.add(points.getCustomerId(), points.getPoints());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Leaderboard seeding was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Leaderboard seeding failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        board = seeded;
+        logger.info("Seeded leaderboard for quarter starting {} with {} customers in {} ms",
+                seeded.quarterStart, seeded.totals.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionsSaved(TransactionsSavedEvent event) {
+        Board current = currentBoard();
+        for (Transaction transaction : event.getTransactions()) {
+            if (current.contains(transaction.getTransactionDate())) {
+                current.add(transaction.getCustomerId(),
+                        rewardRules.points(transaction.getTransactionAmount(), transaction.getTransactionDate()));
+            }
+        }
+    }
+
+    private Board currentBoard() {
+        LocalDate quarterStart = quarterStart(LocalDate.now());
+        Board current = board;
+        if (!current.quarterStart.equals(quarterStart)) {
+            synchronized (this) {
+                current = board;
+                if (!current.quarterStart.equals(quarterStart)) {
+                    logger.info("Starting a new leaderboard for quarter starting {}", quarterStart);
+                    current = new Board(quarterStart);
+                    board = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static LocalDate quarterStart(LocalDate date) {
+        return date.with(IsoFields.DAY_OF_QUARTER, 1);
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static final class Board {
+        private final LocalDate quarterStart;
+        private final LocalDate nextQuarterStart;
+        private final ConcurrentHashMap<Long, Long> totals = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(
+                Comparator.comparingLong((Entry entry) -> entry.points).reversed()
+                        .thenComparingLong(entry -> entry.customerId));
+
+        private Board(LocalDate quarterStart) {
+            this.quarterStart = quarterStart;
+            this.nextQuarterStart = quarterStart.plusMonths(3);
+        }
+
+        private boolean contains(Timestamp transactionDate) {
+            LocalDate day = transactionDate.toLocalDateTime().toLocalDate();
+            return !day.isBefore(quarterStart) && day.isBefore(nextQuarterStart);
+        }
+
+        private void add(long customerId, long points) {
+            if (points == 0) {
+                return;
+            }
+            // compute serialises updates per customer, keeping the ranking in step with the totals
+            totals.compute(customerId, (id, total) -> {
+                long updated = (total == null ? 0 : total) + points;
+                ranking.add(new Entry(id, updated));
+                if (total != null) {
+                    ranking.remove(new Entry(id, total));
+                }
+                return updated;
+            });
+        }
+    }
+
+    private static final class Entry {
+        private final long customerId;
+        private final long points;
+
+        private Entry(long customerId, long points) {
+            this.customerId = customerId;
+            this.points = points;
+        }
+    }
+}
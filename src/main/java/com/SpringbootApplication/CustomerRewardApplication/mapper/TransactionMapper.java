@@ -0,0 +1,41 @@
+package com.SpringbootApplication.CustomerRewardApplication.mapper;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Hand-written conversions between {@link TransactionDTO} and {@link Transaction}.
+ *
+ * Used on every write path instead of reflective mapping, which costs more than the insert itself.
+ */
+public final class TransactionMapper {
+
+    private TransactionMapper() {
+    }
+
+    /**
+     * Maps a DTO to a new, unsaved entity. The DTO's transaction ID is ignored.
+     */
+    public static Transaction toEntity(TransactionDTO transactionDTO) {
+        Transaction transaction = new Transaction();
+        transaction.setCustomerId(transactionDTO.getCustomerId());
+        transaction.setTransactionAmount(transactionDTO.getTransactionAmount());
+        if (transactionDTO.getTransactionDate() != null) {
+            transaction.setTransactionDate(new Timestamp(transactionDTO.getTransactionDate().getTime()));
+        }
+        return transaction;
+    }
+
+    public static TransactionDTO toDto(Transaction transaction) {
+        return TransactionDTO.builder()
+                .transactionId(transaction.getTransactionId())
+                .customerId(transaction.getCustomerId())
+                .transactionAmount(transaction.getTransactionAmount())
+                .transactionDate(transaction.getTransactionDate() == null
+                        ? null : new Date(transaction.getTransactionDate().getTime()))
+                .build();
+    }
+}
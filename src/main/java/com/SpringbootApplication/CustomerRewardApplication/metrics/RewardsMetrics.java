@@ -0,0 +1,142 @@
+package com.SpringbootApplication.CustomerRewardApplication.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Meters of the rewards request path.
+ *
+ * HTTP latency ({@code http.server.requests}) and per-query repository latency
+ * ({@code spring.data.repository.invocations}) are recorded by Spring Boot; this class adds the
+ * service-level measurements on top.
+ */
+@Component
+public class RewardsMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer lookupTimer;
+    private final Timer batchLookupTimer;
+    private final DistributionSummary transactionsScanned;
+    private final DistributionSummary ledgerRowsRead;
+    private final DistributionSummary ingestBatchSize;
+    private final Timer ingestFlushTimer;
+    private final Counter ingestRejected;
+    private final Counter transactionsArchived;
+    private final Counter cacheWarmedUp;
+
+    @Autowired
+    public RewardsMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.lookupTimer = Timer.builder("rewards.lookup")
+                .description("Time to compute the rewards of one customer, cache included")
+                .tag("type", "single")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchLookupTimer = Timer.builder("rewards.lookup")
+                .description("Time to compute the rewards of a batch of customers")
+                .tag("type", "batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.transactionsScanned = DistributionSummary.builder("rewards.lookup.transactions")
+                .description("Transactions aggregated per reward query")
+                .baseUnit("transactions")
+                .tag("source", "transactions")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.ledgerRowsRead = DistributionSummary.builder("rewards.lookup.transactions")
+                .description("Ledger rows read per reward query")
+                .baseUnit("rows")
+                .tag("source", "ledger")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.ingestBatchSize = DistributionSummary.builder("rewards.ingest.batch.size")
+                .description("Transactions per saveTransactions call")
+                .baseUnit("transactions")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.ingestFlushTimer = Timer.builder("rewards.ingest.flush")
+                .description("Time to flush one JDBC insert batch and update the ledger")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.ingestRejected = Counter.builder("rewards.ingest.async.rejected")
+                .description("Transactions turned away because the asynchronous ingestion queue was full")
+                .baseUnit("transactions")
+                .register(meterRegistry);
+        this.transactionsArchived = Counter.builder("rewards.archive.transactions")
+                .description("Transactions moved from TRANSACTION to TRANSACTION_ARCHIVE by the monthly roll-over")
+                .baseUnit("transactions")
+                .register(meterRegistry);
+        this.cacheWarmedUp = Counter.builder("rewards.cache.warmup.customers")
+                .description("Customers whose next-month rewards were cached ahead of the month rollover")
+                .baseUnit("customers")
+                .register(meterRegistry);
+    }
+
+    public <T> T timeLookup(Supplier<T> lookup) {
+        return lookupTimer.record(lookup);
+    }
+
+    public <T> T timeBatchLookup(Supplier<T> lookup) {
+        return batchLookupTimer.record(lookup);
+    }
+
+    public void recordTransactionsScanned(long transactions) {
+        transactionsScanned.record(transactions);
+    }
+
+    public void recordLedgerRowsRead(long rows) {
+        ledgerRowsRead.record(rows);
+    }
+
+    public void recordIngestBatch(int transactions) {
+        ingestBatchSize.record(transactions);
+    }
+
+    public void timeIngestFlush(Runnable flush) {
+        ingestFlushTimer.record(flush);
+    }
+
+    /**
+     * Publishes the number of accepted transactions not yet written as {@code rewards.ingest.async.backlog}.
+     */
+    public <T> void monitorIngestBacklog(T state, ToDoubleFunction<T> backlog) {
+        Gauge.builder("rewards.ingest.async.backlog", state, backlog)
+                .description("Transactions accepted for asynchronous ingestion and not yet written")
+                .baseUnit("transactions")
+                .register(meterRegistry);
+    }
+
+    public void recordIngestRejected(int transactions) {
+        ingestRejected.increment(transactions);
+    }
+
+    public void recordTransactionsArchived(long transactions) {
+        transactionsArchived.increment(transactions);
+    }
+
+    public void recordCacheWarmedUp(int customers) {
+        cacheWarmedUp.increment(customers);
+    }
+
+    /**
+     * Counts customers that could not be found.
+     *
+     * @param source {@code single} for single-customer lookups, {@code batch} for batch lookups
+     * @param count  number of unknown customers
+     */
+    public void recordCustomersNotFound(String source, long count) {
+        Counter.builder("rewards.customer.not.found")
+                .description("Customer IDs that had no transactions at all")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(count);
+    }
+}
@@ -0,0 +1,15 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class BatchRewardsDTO {
+    private List<RewardsDTO> rewards;
+    private List<Long> notFoundCustomerIds;
+}
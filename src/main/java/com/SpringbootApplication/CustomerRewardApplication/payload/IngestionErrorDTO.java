@@ -0,0 +1,13 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class IngestionErrorDTO {
+    private long line;
+    private String message;
+}
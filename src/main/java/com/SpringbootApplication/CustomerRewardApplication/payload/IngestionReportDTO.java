@@ -0,0 +1,18 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class IngestionReportDTO {
+    private long linesRead;
+    private long saved;
+    private long rejected;
+    private List<IngestionErrorDTO> errors;
+    private boolean errorsTruncated;
+}
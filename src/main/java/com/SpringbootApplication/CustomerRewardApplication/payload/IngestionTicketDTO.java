@@ -0,0 +1,19 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionStatus;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+public class IngestionTicketDTO {
+    private String ticketId;
+    private IngestionStatus status;
+    private int transactionCount;
+    private Date finishedAt;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class LeaderboardDTO {
+    // Calendar quarter the points were earned in, e.g. 2025-Q2
+    private String quarter;
+    private List<LeaderboardEntryDTO> entries;
+}
@@ -0,0 +1,14 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class LeaderboardEntryDTO {
+    private int rank;
+    private Long customerId;
+    private long points;
+}
@@ -0,0 +1,15 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class LedgerDriftDTO {
+    private Long customerId;
+    private String rewardMonth;
+    private long expectedPoints;
+    private long ledgerPoints;
+}
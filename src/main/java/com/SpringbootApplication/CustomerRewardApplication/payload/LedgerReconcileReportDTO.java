@@ -0,0 +1,20 @@
+package com.SpringbootApplication.CustomerRewardApplication.payload;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class LedgerReconcileReportDTO {
+    private long customersChecked;
+    private long rowsChecked;
+    private long driftedRows;
+    // Drifted rows a concurrent save changed before they could be repaired, left for the next run
+    private long skippedRows;
+    private boolean repaired;
+    private List<LedgerDriftDTO> driftSamples;
+}
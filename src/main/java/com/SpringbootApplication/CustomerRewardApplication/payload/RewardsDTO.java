@@ -1,9 +1,12 @@
 package com.SpringbootApplication.CustomerRewardApplication.payload;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.YearMonth;
+import java.util.Locale;
 import java.util.Map;
 
 @Getter
@@ -13,4 +16,16 @@ public class RewardsDTO {
     private Long customerId;
     private Map<String, Long> monthlyRewards;
     private long totalRewards;
+
+    // Version of the transactions the rewards were computed from, sent as the ETag rather than in the body
+    @JsonIgnore
+    private String version;
+
+    /**
+     * Returns the key of a month in {@link #getMonthlyRewards()}, such as {@code January}, whatever the default locale.
+     */
+    public static String monthName(YearMonth month) {
+        String name = month.getMonth().name();
+        return name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,21 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerMonthlyReward;
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerMonthlyRewardId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerMonthlyRewardRepository extends JpaRepository<CustomerMonthlyReward, CustomerMonthlyRewardId> {
+
+    List<CustomerMonthlyReward> findAllByCustomerIdInAndRewardMonthIn(Collection<Long> customerIds, Collection<String> rewardMonths);
+
+    List<CustomerMonthlyReward> findAllByCustomerIdIn(Collection<Long> customerIds);
+
+    @Query("SELECT DISTINCT r.customerId FROM CustomerMonthlyReward r")
+    List<Long> findAllCustomerIds();
+}
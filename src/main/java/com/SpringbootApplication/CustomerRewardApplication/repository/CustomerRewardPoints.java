@@ -0,0 +1,10 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+/**
+ * Projection of a customer's reward points summed over a date range.
+ */
+public interface CustomerRewardPoints {
+    Long getCustomerId();
+
+    Long getPoints();
+}
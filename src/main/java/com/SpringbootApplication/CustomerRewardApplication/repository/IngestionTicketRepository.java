@@ -0,0 +1,9 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestionTicketRepository extends JpaRepository<IngestionTicket, String> {
+}
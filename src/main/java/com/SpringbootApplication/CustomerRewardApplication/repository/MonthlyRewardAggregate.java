@@ -0,0 +1,16 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+/**
+ * Projection of a customer's reward points and transaction count for one calendar month.
+ */
+public interface MonthlyRewardAggregate {
+    Long getCustomerId();
+
+    Integer getRewardYear();
+
+    Integer getRewardMonth();
+
+    Long getPoints();
+
+    Long getTransactionCount();
+}
@@ -0,0 +1,16 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+/**
+ * Projection of a customer's reward points aggregated per month bucket.
+ *
+ * The month offset is relative to the current month (1 = last month, 2 = the month before, ...).
+ */
+public interface MonthlyRewardPoints {
+    Long getCustomerId();
+
+    Integer getMonthOffset();
+
+    Long getPoints();
+
+    Long getTransactionCount();
+}
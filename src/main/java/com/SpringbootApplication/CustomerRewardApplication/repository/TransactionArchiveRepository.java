@@ -0,0 +1,34 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.TransactionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransactionArchiveRepository extends JpaRepository<TransactionArchive, Long> {
+    boolean existsByCustomerId(Long customerId);
+
+    /**
+     * Returns those of the given customer IDs that have at least one archived transaction.
+     */
+    @Query("SELECT DISTINCT t.customerId FROM TransactionArchive t WHERE t.customerId IN :customerIds")
+    List<Long> findExistingCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+    @Query("SELECT DISTINCT t.customerId FROM TransactionArchive t")
+    List<Long> findAllCustomerIds();
+
+    /**
+     * Copies the given TRANSACTION rows into the archive in one statement. Must run in the transaction that
+     * deletes them from TRANSACTION.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO TRANSACTION_ARCHIVE (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+            + "SELECT TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT FROM TRANSACTION "
+            + "WHERE TRANSACTION_ID IN (:transactionIds)", nativeQuery = true)
+    int copyFromTransactions(@Param("transactionIds") Collection<Long> transactionIds);
+}
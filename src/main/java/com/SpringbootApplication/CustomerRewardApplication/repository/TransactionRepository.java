@@ -2,13 +2,49 @@ package com.SpringbootApplication.CustomerRewardApplication.repository;
 
 import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 @Repository
 @Transactional
-public interface TransactionRepository extends JpaRepository<Transaction,Long>{
+public interface TransactionRepository extends JpaRepository<Transaction,Long>, TransactionRepositoryCustom {
     List<Transaction> findAllByCustomerIdAndTransactionDateBetween(Long customerId, Date startDate, Date endDate);
     boolean existsByCustomerId(Long customerId);
+
+    /**
+     * Returns those of the given customer IDs that have at least one transaction.
+     */
+    @Query("SELECT DISTINCT t.customerId FROM Transaction t WHERE t.customerId IN :customerIds")
+    List<Long> findExistingCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+    @Query("SELECT DISTINCT t.customerId FROM Transaction t")
+    List<Long> findAllCustomerIds();
+
+    /**
+     * Returns the customers with transactions dated on or after {@code since}, most transactions first.
+     */
+    @Query("SELECT t.customerId FROM Transaction t WHERE t.transactionDate >= :since "
+            + "GROUP BY t.customerId ORDER BY COUNT(t) DESC")
+    List<Long> findMostActiveCustomerIdsSince(@Param("since") Date since, Pageable pageable);
+
+    /**
+     * Returns, in ID order, the IDs after {@code afterId} of transactions dated before {@code cutoff}.
+     * Walking the primary key lets the monthly roll-over page through the table without a date index.
+     */
+    @Query("SELECT t.transactionId FROM Transaction t WHERE t.transactionDate < :cutoff "
+            + "AND t.transactionId > :afterId ORDER BY t.transactionId")
+    List<Long> findIdsDatedBefore(@Param("cutoff") Date cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT DISTINCT t.customerId FROM Transaction t WHERE t.transactionId IN :transactionIds")
+    List<Long> findCustomerIdsByTransactionIdIn(@Param("transactionIds") Collection<Long> transactionIds);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.transactionId IN :transactionIds")
+    int deleteAllByTransactionIdIn(@Param("transactionIds") Collection<Long> transactionIds);
 }
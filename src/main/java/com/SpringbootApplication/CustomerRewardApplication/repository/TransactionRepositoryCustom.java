@@ -0,0 +1,34 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Grouped reward queries whose SQL is generated from the configured reward rules.
+ */
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Sums the reward points of each given customer for the last three months in a single pass over the window.
+     *
+     * Each transaction is bucketed into the month whose [start, end] range contains it and scored with the
+     * reward rule in effect on its date. Customers and months without transactions are not returned.
+     */
+    List<MonthlyRewardPoints> sumRewardPointsByMonthForCustomers(Collection<Long> customerIds,
+                                                                 Date start1, Date end1,
+                                                                 Date start2, Date end2,
+                                                                 Date start3, Date end3);
+
+    /**
+     * Sums the reward points and counts the transactions of each given customer per calendar month,
+     * over their whole history, hot and archived. Used to rebuild and reconcile the monthly reward ledger.
+     */
+    List<MonthlyRewardAggregate> aggregateRewardsByCalendarMonth(Collection<Long> customerIds);
+
+    /**
+     * Sums the reward points of each given customer over transactions dated in [from, to).
+     * Customers without transactions in the range are not returned.
+     */
+    List<CustomerRewardPoints> sumRewardPointsByCustomer(Collection<Long> customerIds, Date from, Date to);
+}
@@ -0,0 +1,138 @@
+package com.SpringbootApplication.CustomerRewardApplication.repository;
+
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Native implementations of {@link TransactionRepositoryCustom}. The rule expression is rendered once, when
+ * the repository is created.
+ */
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final String monthlyPointsSql;
+    private final String calendarMonthAggregateSql;
+    private final String customerPointsSql;
+
+    @Autowired
+    public TransactionRepositoryImpl(RewardRules rewardRules) {
+        this.monthlyPointsSql = monthlyPointsSql(rewardRules);
+        this.calendarMonthAggregateSql = calendarMonthAggregateSql(rewardRules);
+        this.customerPointsSql = customerPointsSql(rewardRules);
+    }
+
+    public static String monthlyPointsSql(RewardRules rewardRules) {
+        return "SELECT b.CUSTOMER_ID, b.MONTH_OFFSET, CAST(SUM(b.POINTS) AS BIGINT), COUNT(*) FROM ("
+                + "SELECT t.CUSTOMER_ID, "
+                + "CASE WHEN t.TRANSACTION_DATE BETWEEN :start1 AND :end1 THEN 1 "
+                + "WHEN t.TRANSACTION_DATE BETWEEN :start2 AND :end2 THEN 2 "
+                + "WHEN t.TRANSACTION_DATE BETWEEN :start3 AND :end3 THEN 3 END AS MONTH_OFFSET, "
+                + rewardRules.toSql("t.AMOUNT", "t.TRANSACTION_DATE") + " AS POINTS "
+                + "FROM TRANSACTION t WHERE t.CUSTOMER_ID IN (:customerIds) "
+                + "AND t.TRANSACTION_DATE BETWEEN :start3 AND :end1) b "
+                + "WHERE b.MONTH_OFFSET IS NOT NULL "
+                + "GROUP BY b.CUSTOMER_ID, b.MONTH_OFFSET";
+    }
+
+    public static String calendarMonthAggregateSql(RewardRules rewardRules) {
+        return "SELECT t.CUSTOMER_ID, EXTRACT(YEAR FROM t.TRANSACTION_DATE), EXTRACT(MONTH FROM t.TRANSACTION_DATE), "
+                + "CAST(SUM(" + rewardRules.toSql("t.AMOUNT", "t.TRANSACTION_DATE") + ") AS BIGINT), COUNT(*) "
+                + "FROM (SELECT CUSTOMER_ID, TRANSACTION_DATE, AMOUNT FROM TRANSACTION WHERE CUSTOMER_ID IN (:customerIds) "
+                + "UNION ALL SELECT CUSTOMER_ID, TRANSACTION_DATE, AMOUNT FROM TRANSACTION_ARCHIVE "
+                + "WHERE CUSTOMER_ID IN (:customerIds)) t "
+                + "GROUP BY t.CUSTOMER_ID, EXTRACT(YEAR FROM t.TRANSACTION_DATE), EXTRACT(MONTH FROM t.TRANSACTION_DATE)";
+    }
+
+    public static String customerPointsSql(RewardRules rewardRules) {
+        return "SELECT t.CUSTOMER_ID, CAST(SUM(" + rewardRules.toSql("t.AMOUNT", "t.TRANSACTION_DATE") + ") AS BIGINT) "
+                + "FROM TRANSACTION t WHERE t.CUSTOMER_ID IN (:customerIds) "
+                + "AND t.TRANSACTION_DATE >= :from AND t.TRANSACTION_DATE < :to "
+                + "GROUP BY t.CUSTOMER_ID";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<MonthlyRewardPoints> sumRewardPointsByMonthForCustomers(Collection<Long> customerIds,
+                                                                        Date start1, Date end1,
+                                                                        Date start2, Date end2,
+                                                                        Date start3, Date end3) {
+        List<Object[]> rows = entityManager.createNativeQuery(monthlyPointsSql)
+                .setParameter("customerIds", customerIds)
+                .setParameter("start1", start1).setParameter("end1", end1)
+                .setParameter("start2", start2).setParameter("end2", end2)
+                .setParameter("start3", start3).setParameter("end3", end3)
+                .getResultList();
+        List<MonthlyRewardPoints> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new MonthlyPoints(((Number) row[0]).longValue(), ((Number) row[1]).intValue(),
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue()));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<MonthlyRewardAggregate> aggregateRewardsByCalendarMonth(Collection<Long> customerIds) {
+        List<Object[]> rows = entityManager.createNativeQuery(calendarMonthAggregateSql)
+                .setParameter("customerIds", customerIds)
+                .getResultList();
+        List<MonthlyRewardAggregate> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new CalendarMonthAggregate(((Number) row[0]).longValue(), ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(), ((Number) row[3]).longValue(), ((Number) row[4]).longValue()));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CustomerRewardPoints> sumRewardPointsByCustomer(Collection<Long> customerIds, Date from, Date to) {
+        List<Object[]> rows = entityManager.createNativeQuery(customerPointsSql)
+                .setParameter("customerIds", customerIds)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+        List<CustomerRewardPoints> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new CustomerPoints(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+        return result;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class MonthlyPoints implements MonthlyRewardPoints {
+        private final Long customerId;
+        private final Integer monthOffset;
+        private final Long points;
+        private final Long transactionCount;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class CalendarMonthAggregate implements MonthlyRewardAggregate {
+        private final Long customerId;
+        private final Integer rewardYear;
+        private final Integer rewardMonth;
+        private final Long points;
+        private final Long transactionCount;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class CustomerPoints implements CustomerRewardPoints {
+        private final Long customerId;
+        private final Long points;
+    }
+}
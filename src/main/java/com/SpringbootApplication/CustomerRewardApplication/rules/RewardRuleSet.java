@@ -0,0 +1,82 @@
+package com.SpringbootApplication.CustomerRewardApplication.rules;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One version of the tiered reward rule, compiled for evaluation on amounts in cents.
+ *
+ * Each tier earns its points per dollar on the part of the amount above its threshold and up to the next
+ * threshold. The points below each threshold are precomputed, so scoring an amount is one comparison per
+ * tier and a multiply, in exact long arithmetic, truncated to whole points.
+ */
+public final class RewardRuleSet {
+
+    private final LocalDate effectiveFrom;
+    private final long[] thresholdCents;
+    private final long[] pointsPerDollar;
+    // Point-cents earned by an amount equal to each threshold
+    private final long[] basePointCents;
+
+    /**
+     * @param effectiveFrom   first day the rule applies to
+     * @param thresholdCents  tier thresholds in cents, strictly ascending
+     * @param pointsPerDollar points per dollar above the threshold of the same index
+     */
+    public RewardRuleSet(LocalDate effectiveFrom, long[] thresholdCents, long[] pointsPerDollar) {
+        if (effectiveFrom == null) {
+            throw new IllegalArgumentException("Reward rule needs an effective date");
+        }
+        if (thresholdCents.length == 0 || thresholdCents.length != pointsPerDollar.length) {
+            throw new IllegalArgumentException("Reward rule from " + effectiveFrom + " needs one rate per tier");
+        }
+        this.effectiveFrom = effectiveFrom;
+        this.thresholdCents = thresholdCents.clone();
+        this.pointsPerDollar = pointsPerDollar.clone();
+        this.basePointCents = new long[thresholdCents.length];
+        for (int i = 0; i < thresholdCents.length; i++) {
+            if (thresholdCents[i] < 0 || pointsPerDollar[i] < 0) {
+                throw new IllegalArgumentException("Reward rule from " + effectiveFrom + " has a negative tier");
+            }
+            if (i > 0) {
+                if (thresholdCents[i] <= thresholdCents[i - 1]) {
+                    throw new IllegalArgumentException("Reward rule from " + effectiveFrom
+                            + " has tier thresholds out of order: " + Arrays.toString(thresholdCents));
+                }
+                basePointCents[i] = basePointCents[i - 1] + (thresholdCents[i] - thresholdCents[i - 1]) * pointsPerDollar[i - 1];
+            }
+        }
+    }
+
+    public LocalDate getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    /**
+     * Scores one transaction.
+     *
+     * @param amountCents the transaction amount in cents
+     * @return the reward points, truncated to whole points
+     */
+    public long points(long amountCents) {
+        for (int i = thresholdCents.length - 1; i >= 0; i--) {
+            if (amountCents > thresholdCents[i]) {
+                return (basePointCents[i] + (amountCents - thresholdCents[i]) * pointsPerDollar[i]) / 100;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Renders {@link #points(long)} as a SQL expression over an integer amount in cents.
+     */
+    String toSql(String amountCents) {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = thresholdCents.length - 1; i >= 0; i--) {
+            sql.append(" WHEN ").append(amountCents).append(" > ").append(thresholdCents[i])
+                    .append(" THEN (").append(basePointCents[i]).append(" + (").append(amountCents)
+                    .append(" - ").append(thresholdCents[i]).append(") * ").append(pointsPerDollar[i]).append(") / 100");
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.SpringbootApplication.CustomerRewardApplication.rules;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The reward rule versions, each applying to transactions dated on or after its effective date and before
+ * the next version's. The earliest version also covers anything dated before it.
+ *
+ * Transactions are always scored under the version in effect on their own date, so historic months keep the
+ * points they earned when the rules change. Amounts are scored in whole cents.
+ */
+public final class RewardRules {
+
+    private final RewardRuleSet[] ruleSets;
+    private final long[] effectiveFromDays;
+
+    public RewardRules(List<RewardRuleSet> ruleSets) {
+        if (ruleSets.isEmpty()) {
+            throw new IllegalArgumentException("At least one reward rule version is required");
+        }
+        List<RewardRuleSet> sorted = new ArrayList<>(ruleSets);
+        sorted.sort(Comparator.comparing(RewardRuleSet::getEffectiveFrom));
+        this.ruleSets = sorted.toArray(new RewardRuleSet[0]);
+        this.effectiveFromDays = new long[this.ruleSets.length];
+        for (int i = 0; i < this.ruleSets.length; i++) {
+            effectiveFromDays[i] = this.ruleSets[i].getEffectiveFrom().toEpochDay();
+            if (i > 0 && effectiveFromDays[i] == effectiveFromDays[i - 1]) {
+                throw new IllegalArgumentException("Two reward rule versions are effective from "
+                        + this.ruleSets[i].getEffectiveFrom());
+            }
+        }
+    }
+
+    /**
+     * The original rule: 1 point per dollar between $50 and $100 and 2 points per dollar over $100.
+     */
+    public static RewardRules standard() {
+        return new RewardRules(Collections.singletonList(
+                new RewardRuleSet(LocalDate.EPOCH, new long[]{5_000, 10_000}, new long[]{1, 2})));
+    }
+
+    /**
+     * Converts a dollar amount to whole cents, rounding away the binary floating-point error.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public List<RewardRuleSet> getRuleSets() {
+        return List.of(ruleSets);
+    }
+
+    /**
+     * @param epochDay the transaction date as {@link LocalDate#toEpochDay()}
+     * @return the rule version in effect on that day
+     */
+    public RewardRuleSet ruleSetOn(long epochDay) {
+        int low = 0;
+        int high = effectiveFromDays.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (effectiveFromDays[mid] <= epochDay) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return ruleSets[low];
+    }
+
+    public long points(long amountCents, long epochDay) {
+        return ruleSetOn(epochDay).points(amountCents);
+    }
+
+    public long points(double amount, Timestamp transactionDate) {
+        return points(toCents(amount), transactionDate.toLocalDateTime().toLocalDate().toEpochDay());
+    }
+
+    /**
+     * Renders the rules as a SQL expression scoring one row, for the grouped queries that sum points in the
+     * database.
+     *
+     * @param amountColumn the column holding the amount in dollars
+     * @param dateColumn   the column holding the transaction timestamp
+     */
+    public String toSql(String amountColumn, String dateColumn) {
+        String amountCents = "CAST(ROUND(" + amountColumn + " * 100) AS BIGINT)";
+        if (ruleSets.length == 1) {
+            return ruleSets[0].toSql(amountCents);
+        }
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = ruleSets.length - 1; i > 0; i--) {
+            sql.append(" WHEN ").append(dateColumn).append(" >= TIMESTAMP '")
+                    .append(ruleSets[i].getEffectiveFrom()).append(" 00:00:00' THEN ")
+                    .append(ruleSets[i].toSql(amountCents));
+        }
+        return sql.append(" ELSE ").append(ruleSets[0].toSql(amountCents)).append(" END").toString();
+    }
+}
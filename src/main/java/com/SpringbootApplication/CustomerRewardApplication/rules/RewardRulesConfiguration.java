@@ -0,0 +1,21 @@
+package com.SpringbootApplication.CustomerRewardApplication.rules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RewardRulesProperties.class)
+public class RewardRulesConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardRulesConfiguration.class);
+
+    @Bean
+    public RewardRules rewardRules(RewardRulesProperties properties) {
+        RewardRules rules = properties.toRules();
+        logger.info("Loaded {} reward rule version(s)", rules.getRuleSets().size());
+        return rules;
+    }
+}
@@ -0,0 +1,73 @@
+package com.SpringbootApplication.CustomerRewardApplication.rules;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reward rule versions from {@code rewards.rules.versions[n]}, for example:
+ * <pre>
+ * rewards.rules.versions[0].effective-from=1970-01-01
+ * rewards.rules.versions[0].tiers[0].over=50
+ * rewards.rules.versions[0].tiers[0].points-per-dollar=1
+ * rewards.rules.versions[0].tiers[1].over=100
+ * rewards.rules.versions[0].tiers[1].points-per-dollar=2
+ * </pre>
+ * Without any version configured the {@linkplain RewardRules#standard() standard rule} applies.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rewards.rules")
+public class RewardRulesProperties {
+
+    private List<Version> versions = new ArrayList<>();
+
+    public RewardRules toRules() {
+        if (versions.isEmpty()) {
+            return RewardRules.standard();
+        }
+        List<RewardRuleSet> ruleSets = new ArrayList<>(versions.size());
+        for (Version version : versions) {
+            long[] thresholdCents = new long[version.getTiers().size()];
+            long[] pointsPerDollar = new long[thresholdCents.length];
+            for (int i = 0; i < thresholdCents.length; i++) {
+                Tier tier = version.getTiers().get(i);
+                if (tier.getOver() == null) {
+                    throw new IllegalArgumentException("Reward tier " + i + " of the rule from "
+                            + version.getEffectiveFrom() + " has no threshold");
+                }
+                try {
+                    thresholdCents[i] = tier.getOver().movePointRight(2).longValueExact();
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Reward tier threshold " + tier.getOver()
+                            + " is not a whole number of cents", e);
+                }
+                pointsPerDollar[i] = tier.getPointsPerDollar();
+            }
+            ruleSets.add(new RewardRuleSet(version.getEffectiveFrom(), thresholdCents, pointsPerDollar));
+        }
+        return new RewardRules(ruleSets);
+    }
+
+    @Getter
+    @Setter
+    public static class Version {
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        private LocalDate effectiveFrom;
+        private List<Tier> tiers = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Tier {
+        // Dollar amount above which the tier's rate applies
+        private BigDecimal over;
+        private long pointsPerDollar;
+    }
+}
@@ -0,0 +1,387 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionStatus;
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionTicket;
+import com.SpringbootApplication.CustomerRewardApplication.exception.IngestionRejectedException;
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionTicketDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.IngestionTicketRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind ingestion: accepted transactions are journaled, queued and acknowledged with a ticket, and a
+ * single writer thread saves them in grouped, batched inserts.
+ *
+ * The queue holds at most {@code rewards.ingest.async.queue-capacity} transactions; requests beyond that are
+ * rejected with 429 rather than tying up request threads. Every accepted request is in the local journal
+ * before it is acknowledged and its ticket is committed together with its transactions, so on restart the
+ * journal is replayed and tickets already committed are skipped.
+ *
+ * A request is only marked {@code FAILED} when it cannot be written as it is, such as a constraint violation.
+ * When the database is briefly unavailable, times out or picks the group as a deadlock victim, the group is
+ * queued again after a growing delay and stays in the journal until it is written.
+ *
+ * Enabled with {@code rewards.ingest.async.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "rewards.ingest.async.enabled", havingValue = "true")
+public class AsyncIngestionService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncIngestionService.class);
+
+    private static final long POLL_MILLIS = 100;
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    // The retry delay doubles per attempt up to 2^5 times the configured delay
+    private static final int MAX_BACKOFF_DOUBLINGS = 5;
+
+    private final RewardsService rewardsService;
+    private final IngestionTicketRepository ticketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RewardsMetrics rewardsMetrics;
+    private final IngestionJournal journal;
+    private final long queueCapacity;
+    private final int groupSize;
+    private final long journalCompactBytes;
+    private final Duration retryDelay;
+
+    private final LinkedBlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+    // Journaled submissions not yet committed or failed, queued or in flight
+    private final Map<String, Submission> pending = new ConcurrentHashMap<>();
+    private final AtomicLong backlog = new AtomicLong();
+    private final Object journalLock = new Object();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public AsyncIngestionService(RewardsService rewardsService,
+                                 IngestionTicketRepository ticketRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 RewardsMetrics rewardsMetrics,
+                                 ObjectMapper objectMapper,
+                                 @Value("${rewards.ingest.async.queue-capacity:10000}") long queueCapacity,
+                                 @Value("${rewards.ingest.batch-size:500}") int groupSize,
+                                 @Value("${rewards.ingest.async.journal:data/ingest-journal.ndjson}") String journalPath,
+                                 @Value("${rewards.ingest.async.fsync:true}") boolean fsync,
+                                 @Value("${rewards.ingest.async.journal-compact-bytes:67108864}") long journalCompactBytes,
+                                 @Value("${rewards.ingest.async.retry-delay:1s}") Duration retryDelay) throws IOException {
+        this.rewardsService = rewardsService;
+        this.ticketRepository = ticketRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rewardsMetrics = rewardsMetrics;
+        this.journal = new IngestionJournal(Path.of(journalPath), fsync, objectMapper);
+        this.queueCapacity = queueCapacity;
+        this.groupSize = groupSize;
+        this.journalCompactBytes = journalCompactBytes;
+        this.retryDelay = retryDelay;
+        rewardsMetrics.monitorIngestBacklog(backlog, AtomicLong::get);
+    }
+
+    /**
+     * Journals and queues validated transactions for writing.
+     *
+     * @param transactionDTOs the transactions to save
+     * @return the ticket to poll for the outcome
+     * @throws IngestionRejectedException with 429 when the queue is full, 413 when the request alone exceeds
+     *                                    the queue capacity, or 503 while shutting down
+     */
+    public IngestionTicketDTO submit(List<TransactionDTO> transactionDTOs) {
+        int size = transactionDTOs.size();
+        if (size > queueCapacity) {
+            throw new IngestionRejectedException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + queueCapacity + " transactions can be submitted at once.");
+        }
+        if (!running) {
+            throw new IngestionRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Ingestion is not running.");
+        }
+        if (!reserve(size)) {
+            rewardsMetrics.recordIngestRejected(size);
+            throw new IngestionRejectedException(HttpStatus.TOO_MANY_REQUESTS, "Ingestion queue is full, retry later.");
+        }
+
+        Submission submission = new Submission(UUID.randomUUID().toString(), new ArrayList<>(transactionDTOs));
+        try {
+            synchronized (journalLock) {
+                journal.append(new IngestionJournal.Entry(submission.ticketId, submission.transactions));
+                pending.put(submission.ticketId, submission);
+            }
+        } catch (IOException e) {
+            backlog.addAndGet(-size);
+            throw new UncheckedIOException("Could not journal the ingestion request", e);
+        }
+        queue.add(submission);
+        return IngestionTicketDTO.builder()
+                .ticketId(submission.ticketId)
+                .status(IngestionStatus.ACCEPTED)
+                .transactionCount(size)
+                .build();
+    }
+
+    /**
+     * Looks up a ticket: queued tickets from memory, finished ones from INGESTION_TICKET.
+     */
+    public Optional<IngestionTicketDTO> getTicket(String ticketId) {
+        Submission submission = pending.get(ticketId);
+        if (submission != null) {
+            return Optional.of(IngestionTicketDTO.builder()
+                    .ticketId(ticketId)
+                    .status(IngestionStatus.ACCEPTED)
+                    .transactionCount(submission.transactions.size())
+                    .build());
+        }
+        return ticketRepository.findById(ticketId).map(ticket -> IngestionTicketDTO.builder()
+                .ticketId(ticket.getTicketId())
+                .status(ticket.getStatus())
+                .transactionCount(ticket.getTransactionCount())
+                .finishedAt(ticket.getFinishedAt())
+                .message(ticket.getMessage())
+                .build());
+    }
+
+    /**
+     * Replays the journal and starts the writer.
+     */
+    @Override
+    public void start() {
+        try {
+            replay();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay the ingestion journal", e);
+        }
+        running = true;
+        writer = new Thread(this::drain, "ingest-writer");
+        writer.start();
+    }
+
+    /**
+     * Stops accepting requests and lets the writer finish its current group. Anything still queued stays in
+     * the journal for the next start.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the ingestion journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean reserve(int size) {
+        long current;
+        do {
+            current = backlog.get();
+            if (current + size > queueCapacity) {
+                return false;
+            }
+        } while (!backlog.compareAndSet(current, current + size));
+        return true;
+    }
+
+    private void replay() throws IOException {
+        int replayed = 0;
+        for (IngestionJournal.Entry entry : journal.readAll()) {
+            if (pending.containsKey(entry.getTicketId()) || ticketRepository.existsById(entry.getTicketId())) {
+                continue;
+            }
+            Submission submission = new Submission(entry.getTicketId(), entry.getTransactions());
+            // Replayed work was accepted before, so it is queued even beyond the capacity
+            backlog.addAndGet(submission.transactions.size());
+            pending.put(submission.ticketId, submission);
+            queue.add(submission);
+            replayed++;
+        }
+        compact();
+        if (replayed > 0) {
+            logger.info("Replayed {} unfinished ingestion requests from the journal", replayed);
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                Submission first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (pending.isEmpty()) {
+                        compact();
+                    }
+                    continue;
+                }
+                // Group queued requests into one transaction of batched inserts
+                List<Submission> group = new ArrayList<>();
+                group.add(first);
+                int transactions = first.transactions.size();
+                Submission next;
+                while (transactions < groupSize && (next = queue.poll()) != null) {
+                    group.add(next);
+                    transactions += next.transactions.size();
+                }
+                write(group);
+                if (journal.size() > journalCompactBytes) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Ingestion writer failed, continuing", e);
+            }
+        }
+    }
+
+    private void write(List<Submission> group) throws InterruptedException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<TransactionDTO> transactions = new ArrayList<>();
+                List<IngestionTicket> tickets = new ArrayList<>(group.size());
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                for (Submission submission : group) {
+                    transactions.addAll(submission.transactions);
+                    tickets.add(new IngestionTicket(submission.ticketId, IngestionStatus.COMPLETED,
+                            submission.transactions.size(), now, null));
+                }
+                rewardsService.saveTransactions(transactions);
+                ticketRepository.saveAll(tickets);
+            });
+            group.forEach(this::finish);
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                retryLater(group, e);
+            } else if (group.size() > 1) {
+                // Retry one by one so that a bad request does not fail the others
+                for (Submission submission : group) {
+                    write(Collections.singletonList(submission));
+                }
+            } else {
+                fail(group.get(0), e);
+            }
+        }
+    }
+
+    private void fail(Submission submission, RuntimeException cause) throws InterruptedException {
+        String message = String.valueOf(cause.getMessage());
+        try {
+            ticketRepository.save(new IngestionTicket(submission.ticketId, IngestionStatus.FAILED,
+                    submission.transactions.size(), new Timestamp(System.currentTimeMillis()),
+                    message.substring(0, Math.min(message.length(), MAX_MESSAGE_LENGTH))));
+            logger.warn("Ingestion ticket {} failed: {}", submission.ticketId, message);
+            finish(submission);
+        } catch (RuntimeException e) {
+            // The database is unavailable: keep the request journaled and try again later
+            logger.error("Could not write ingestion ticket {}, retrying in {}", submission.ticketId, retryDelay, e);
+            Thread.sleep(retryDelay.toMillis());
+            queue.add(submission);
+        }
+    }
+
+    /**
+     * Queues a group again after a delay that grows with its attempts. If the service stops in the meantime the
+     * group is left in the journal for the next start.
+     */
+    private void retryLater(List<Submission> group, RuntimeException cause) throws InterruptedException {
+        int attempts = 0;
+        for (Submission submission : group) {
+            attempts = Math.max(attempts, ++submission.attempts);
+        }
+        long delay = retryDelay.toMillis() << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS);
+        logger.warn("Could not write {} ingestion requests (attempt {}), retrying in {} ms: {}",
+                group.size(), attempts, delay, cause.getMessage());
+        long deadline = System.currentTimeMillis() + delay;
+        long remaining;
+        while (running && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            Thread.sleep(Math.min(remaining, POLL_MILLIS));
+        }
+        if (running) {
+            queue.addAll(group);
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException || cause instanceof SQLTransientException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void finish(Submission submission) {
+        pending.remove(submission.ticketId);
+        backlog.addAndGet(-submission.transactions.size());
+    }
+
+    /**
+     * Drops finished requests from the journal.
+     */
+    private void compact() {
+        synchronized (journalLock) {
+            try {
+                if (journal.size() == 0) {
+                    return;
+                }
+                List<IngestionJournal.Entry> unfinished = new ArrayList<>(pending.size());
+                for (Submission submission : pending.values()) {
+                    unfinished.add(new IngestionJournal.Entry(submission.ticketId, submission.transactions));
+                }
+                journal.rewrite(unfinished);
+            } catch (IOException e) {
+                logger.warn("Could not compact the ingestion journal", e);
+            }
+        }
+    }
+
+    private static final class Submission {
+        private final String ticketId;
+        private final List<TransactionDTO> transactions;
+        private int attempts;
+
+        private Submission(String ticketId, List<TransactionDTO> transactions) {
+            this.ticketId = ticketId;
+            this.transactions = transactions;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Local append-only journal of accepted ingestion requests, one JSON entry per line.
+ *
+ * An entry is forced to disk before the request is acknowledged (unless {@code fsync} is off), so an
+ * acknowledged request survives a crash. A torn last line, from a crash in the middle of an append, belongs
+ * to a request that was never acknowledged and is skipped on read.
+ */
+class IngestionJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJournal.class);
+
+    private final Path path;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+
+    IngestionJournal(Path path, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        this.path = path;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = open(path);
+    }
+
+    synchronized void append(Entry entry) throws IOException {
+        write(channel, entry);
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Reads every complete entry, in append order.
+     */
+    synchronized List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (JsonProcessingException e) {
+                    logger.warn("Skipping unreadable ingestion journal line {} in {}", lineNumber, path);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Replaces the journal with only the given entries. The new file is written and forced next to the old
+     * one and then moved over it, so a crash leaves either the old or the new journal.
+     */
+    synchronized void rewrite(Collection<Entry> entries) throws IOException {
+        Path next = path.resolveSibling(path.getFileName() + ".next");
+        try (FileChannel rewritten = FileChannel.open(next, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Entry entry : entries) {
+                write(rewritten, entry);
+            }
+            rewritten.force(false);
+        }
+        channel.close();
+        Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(FileChannel target, Entry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Entry {
+        private String ticketId;
+        private List<TransactionDTO> transactions;
+    }
+}
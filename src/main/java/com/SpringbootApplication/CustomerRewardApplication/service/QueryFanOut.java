@@ -0,0 +1,80 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs independent database-bound tasks concurrently, with at most
+ * {@code rewards.batch.max-concurrent-queries} of them holding a connection at a time.
+ *
+ * Tasks run on the application task executor, which uses virtual threads when
+ * {@code spring.threads.virtual.enabled=true} on Java 21. The call is scoped: it returns only once every task
+ * has finished, and the first failure cancels the tasks that have not started yet and is rethrown.
+ */
+@Component
+public class QueryFanOut {
+
+    private final Executor executor;
+    private final Semaphore permits;
+
+    @Autowired
+    public QueryFanOut(@Qualifier("applicationTaskExecutor") Executor executor,
+                       @Value("${rewards.batch.max-concurrent-queries:4}") int maxConcurrentQueries) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrentQueries);
+    }
+
+    /**
+     * Applies {@code work} to every task and returns the results in task order.
+     */
+    public <T, R> List<R> mapAll(List<T> tasks, Function<T, R> work) {
+        List<R> results = new ArrayList<>(tasks.size());
+        if (tasks.size() <= 1) {
+            // Nothing to overlap, stay on the caller's thread
+            tasks.forEach(task -> results.add(work.apply(task)));
+            return results;
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            futures.add(CompletableFuture.supplyAsync(() -> withPermit(task, work), executor));
+        }
+        try {
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } catch (CompletionException | CancellationException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T, R> R withPermit(T task, Function<T, R> work) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a database permit");
+        }
+        try {
+            return work.apply(task);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerMonthlyReward;
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerMonthlyRewardId;
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LedgerDriftDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LedgerReconcileReportDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.CustomerMonthlyRewardRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.MonthlyRewardAggregate;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Maintains the {@link CustomerMonthlyReward} ledger: per-customer reward points for each calendar month.
+ *
+ * Writes are applied in the same transaction that saves the transactions, so the ledger never runs ahead
+ * of or behind the TRANSACTION table. {@link #reconcile(boolean)} recomputes the ledger from TRANSACTION and
+ * TRANSACTION_ARCHIVE to backfill it or detect drift. Points are scored under the rule version in effect on
+ * each transaction's date, so after a retroactive rule change a repairing reconcile brings the affected months
+ * up to date.
+ *
+ * Rows are written with plain JDBC rather than through the entity manager, so that a lost race on a row's
+ * primary key can be rolled back to a savepoint without failing the surrounding transaction.
+ */
+@Service
+public class RewardLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardLedgerService.class);
+
+    private static final int MAX_DRIFT_SAMPLES = 100;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private static final String ADD_POINTS_SQL = "UPDATE CUSTOMER_MONTHLY_REWARD "
+            + "SET POINTS = POINTS + ?, TRANSACTION_COUNT = TRANSACTION_COUNT + ? "
+            + "WHERE CUSTOMER_ID = ? AND REWARD_MONTH = ?";
+    private static final String INSERT_SQL = "INSERT INTO CUSTOMER_MONTHLY_REWARD "
+            + "(CUSTOMER_ID, REWARD_MONTH, POINTS, TRANSACTION_COUNT) VALUES (?, ?, ?, ?)";
+    private static final String REPAIR_SQL = "UPDATE CUSTOMER_MONTHLY_REWARD SET POINTS = ?, TRANSACTION_COUNT = ? "
+            + "WHERE CUSTOMER_ID = ? AND REWARD_MONTH = ? AND POINTS = ? AND TRANSACTION_COUNT = ?";
+    private static final String DELETE_SQL = "DELETE FROM CUSTOMER_MONTHLY_REWARD "
+            + "WHERE CUSTOMER_ID = ? AND REWARD_MONTH = ? AND POINTS = ? AND TRANSACTION_COUNT = ?";
+
+    private final CustomerMonthlyRewardRepository ledgerRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final RewardsVersionService rewardsVersionService;
+    private final RewardsMetrics rewardsMetrics;
+    private final RewardRules rewardRules;
+
+    @Value("${rewards.ledger.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize = 1000;
+
+    @Value("${rewards.ledger.rebuild-parallelism:4}")
+    private int rebuildParallelism = 4;
+
+    @Autowired
+    public RewardLedgerService(CustomerMonthlyRewardRepository ledgerRepository,
+                               TransactionRepository transactionRepository,
+                               TransactionArchiveRepository archiveRepository,
+                               DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               RewardsVersionService rewardsVersionService,
+                               RewardsMetrics rewardsMetrics,
+                               RewardRules rewardRules) {
+        this.ledgerRepository = ledgerRepository;
+        this.transactionRepository = transactionRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.rewardsVersionService = rewardsVersionService;
+        this.rewardsMetrics = rewardsMetrics;
+        this.rewardRules = rewardRules;
+    }
+
+    /**
+     * Adds freshly saved transactions to the ledger. Must run inside the transaction that saved them.
+     *
+     * @param transactions the saved transactions
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Transaction> transactions) {
+        // Collapse the batch to one upsert per customer and month
+        Map<CustomerMonthlyRewardId, long[]> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            CustomerMonthlyRewardId id = new CustomerMonthlyRewardId(transaction.getCustomerId(),
+                    monthOf(transaction.getTransactionDate()).toString());
+            long[] delta = deltas.computeIfAbsent(id, key -> new long[2]);
+            delta[0] += rewardRules.points(transaction.getTransactionAmount(), transaction.getTransactionDate());
+            delta[1]++;
+        }
+        deltas.forEach((id, delta) -> addPoints(id, delta[0], delta[1]));
+    }
+
+    /**
+     * Adds points and transactions to a ledger row, creating it when missing. Concurrent first writes of a row
+     * both find nothing to update and both insert; the one that loses the primary key race adds to the row the
+     * other one created.
+     */
+    private void addPoints(CustomerMonthlyRewardId id, long points, long transactionCount) {
+        if (jdbcTemplate.update(ADD_POINTS_SQL, points, transactionCount, id.getCustomerId(), id.getRewardMonth()) > 0) {
+            return;
+        }
+        if (!insertUnlessPresent(id, points, transactionCount)) {
+            jdbcTemplate.update(ADD_POINTS_SQL, points, transactionCount, id.getCustomerId(), id.getRewardMonth());
+        }
+    }
+
+    /**
+     * Inserts a ledger row unless another transaction has committed one with the same key meanwhile, waiting
+     * for it if it is still open. The duplicate key failure is rolled back to a savepoint, so the surrounding
+     * transaction carries on.
+     *
+     * @return whether the row was inserted
+     */
+    private boolean insertUnlessPresent(CustomerMonthlyRewardId id, long points, long transactionCount) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                insert.setLong(1, id.getCustomerId());
+                insert.setString(2, id.getRewardMonth());
+                insert.setLong(3, points);
+                insert.setLong(4, transactionCount);
+                insert.executeUpdate();
+                return true;
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                return false;
+            } finally {
+                connection.releaseSavepoint(savepoint);
+            }
+        });
+    }
+
+    /**
+     * Reads the ledger rows of the three months before {@code currentMonth}.
+     *
+     * @param customerIds  the customers to look up
+     * @param currentMonth the month the window is relative to
+     * @return points indexed by month offset (1 = last month) for each customer with ledger rows in the window
+     */
+    public Map<Long, long[]> findPointsByMonthOffset(Collection<Long> customerIds, YearMonth currentMonth) {
+        Map<String, Integer> offsets = new HashMap<>();
+        for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+            offsets.put(currentMonth.minusMonths(monthOffset).toString(), monthOffset);
+        }
+
+        Map<Long, long[]> pointsById = new HashMap<>();
+        List<CustomerMonthlyReward> rows = ledgerRepository.findAllByCustomerIdInAndRewardMonthIn(customerIds, offsets.keySet());
+        for (CustomerMonthlyReward row : rows) {
+            pointsById.computeIfAbsent(row.getCustomerId(), id -> new long[4])[offsets.get(row.getRewardMonth())] = row.getPoints();
+        }
+        rewardsMetrics.recordLedgerRowsRead(rows.size());
+        return pointsById;
+    }
+
+    /**
+     * Recomputes the ledger from TRANSACTION and compares it with the stored rows.
+     *
+     * Customers are processed in chunks of {@code rewards.ledger.rebuild-chunk-size}, with up to
+     * {@code rewards.ledger.rebuild-parallelism} chunks in flight, each in its own transaction. A repair only
+     * writes a row that no transaction has changed since it was read, so saves can run alongside it; rows they
+     * change are counted as skipped and left for the next run. Repairs raise the rewards versions of their
+     * customers, which also drops their cached rewards.
+     *
+     * @param repair whether drifted rows should be overwritten with the recomputed values
+     * @return a report of the rows checked and the drift found
+     */
+    public LedgerReconcileReportDTO reconcile(boolean repair) {
+        TreeSet<Long> customerIds = new TreeSet<>(transactionRepository.findAllCustomerIds());
+        customerIds.addAll(archiveRepository.findAllCustomerIds());
+        customerIds.addAll(ledgerRepository.findAllCustomerIds());
+        List<Long> allIds = new ArrayList<>(customerIds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Future<ChunkResult>> futures = new ArrayList<>();
+            for (int from = 0; from < allIds.size(); from += rebuildChunkSize) {
+                List<Long> chunk = allIds.subList(from, Math.min(from + rebuildChunkSize, allIds.size()));
+                futures.add(executor.submit(() -> transactionTemplate.execute(status -> reconcileChunk(chunk, repair))));
+            }
+
+            long rowsChecked = 0;
+            long driftedRows = 0;
+            long skippedRows = 0;
+            List<LedgerDriftDTO> samples = new ArrayList<>();
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                rowsChecked += result.rowsChecked;
+                driftedRows += result.drift.size();
+                skippedRows += result.skippedRows;
+                for (LedgerDriftDTO drift : result.drift) {
+                    if (samples.size() < MAX_DRIFT_SAMPLES) {
+                        samples.add(drift);
+                    }
+                }
+            }
+            logger.info("Reconciled reward ledger for {} customers: {} rows checked, {} drifted, {} skipped, repair={}",
+                    allIds.size(), rowsChecked, driftedRows, skippedRows, repair);
+
+            return LedgerReconcileReportDTO.builder()
+                    .customersChecked(allIds.size())
+                    .rowsChecked(rowsChecked)
+                    .driftedRows(driftedRows)
+                    .skippedRows(skippedRows)
+                    .repaired(repair)
+                    .driftSamples(samples)
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ledger reconciliation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ledger reconciliation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ChunkResult reconcileChunk(List<Long> customerIds, boolean repair) {
+        // The ledger is read before TRANSACTION: a save that commits in between has changed its ledger rows since
+        // they were read, so the compare-and-set writes below skip them rather than overwrite its points
+        Map<CustomerMonthlyRewardId, CustomerMonthlyReward> actual = new HashMap<>();
+        for (CustomerMonthlyReward row : ledgerRepository.findAllByCustomerIdIn(customerIds)) {
+            actual.put(new CustomerMonthlyRewardId(row.getCustomerId(), row.getRewardMonth()), row);
+        }
+        Map<CustomerMonthlyRewardId, CustomerMonthlyReward> expected = new HashMap<>();
+        for (MonthlyRewardAggregate aggregate : transactionRepository.aggregateRewardsByCalendarMonth(customerIds)) {
+            String rewardMonth = YearMonth.of(aggregate.getRewardYear(), aggregate.getRewardMonth()).toString();
+            expected.put(new CustomerMonthlyRewardId(aggregate.getCustomerId(), rewardMonth),
+                    new CustomerMonthlyReward(aggregate.getCustomerId(), rewardMonth,
+                            aggregate.getPoints(), aggregate.getTransactionCount()));
+        }
+
+        ChunkResult result = new ChunkResult();
+        for (Map.Entry<CustomerMonthlyRewardId, CustomerMonthlyReward> entry : expected.entrySet()) {
+            CustomerMonthlyRewardId id = entry.getKey();
+            CustomerMonthlyReward want = entry.getValue();
+            CustomerMonthlyReward have = actual.remove(id);
+            result.rowsChecked++;
+            if (have == null) {
+                result.drift.add(drift(want, 0, want.getPoints()));
+                if (repair) {
+                    result.recordRepair(id, insertUnlessPresent(id, want.getPoints(), want.getTransactionCount()));
+                }
+            } else if (have.getPoints() != want.getPoints() || have.getTransactionCount() != want.getTransactionCount()) {
+                result.drift.add(drift(want, have.getPoints(), want.getPoints()));
+                if (repair) {
+                    result.recordRepair(id, jdbcTemplate.update(REPAIR_SQL, want.getPoints(), want.getTransactionCount(),
+                            id.getCustomerId(), id.getRewardMonth(), have.getPoints(), have.getTransactionCount()) > 0);
+                }
+            }
+        }
+        // Whatever is left has no transactions behind it
+        for (Map.Entry<CustomerMonthlyRewardId, CustomerMonthlyReward> entry : actual.entrySet()) {
+            CustomerMonthlyReward orphan = entry.getValue();
+            result.rowsChecked++;
+            result.drift.add(drift(orphan, orphan.getPoints(), 0));
+            if (repair) {
+                result.recordRepair(entry.getKey(), jdbcTemplate.update(DELETE_SQL, orphan.getCustomerId(),
+                        orphan.getRewardMonth(), orphan.getPoints(), orphan.getTransactionCount()) > 0);
+            }
+        }
+        rewardsVersionService.raise(result.repairedCustomerIds);
+        return result;
+    }
+
+    private LedgerDriftDTO drift(CustomerMonthlyReward row, long ledgerPoints, long expectedPoints) {
+        return LedgerDriftDTO.builder()
+                .customerId(row.getCustomerId())
+                .rewardMonth(row.getRewardMonth())
+                .expectedPoints(expectedPoints)
+                .ledgerPoints(ledgerPoints)
+                .build();
+    }
+
+    private YearMonth monthOf(Timestamp transactionDate) {
+        return YearMonth.from(transactionDate.toLocalDateTime());
+    }
+
+    private static final class ChunkResult {
+        private long rowsChecked;
+        private long skippedRows;
+        private final List<LedgerDriftDTO> drift = new ArrayList<>();
+        private final Set<Long> repairedCustomerIds = new HashSet<>();
+
+        private void recordRepair(CustomerMonthlyRewardId id, boolean written) {
+            if (written) {
+                repairedCustomerIds.add(id.getCustomerId());
+            } else {
+                skippedRows++;
+            }
+        }
+    }
+}
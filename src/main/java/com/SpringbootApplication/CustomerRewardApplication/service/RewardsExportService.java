@@ -0,0 +1,265 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streams the rewards statement of every customer as CSV or NDJSON.
+ *
+ * Customers are exported in pages of consecutive customer IDs holding about {@code rewards.export.page-rows}
+ * transaction rows. Each page is one short read-only transaction: a scan of TRANSACTION in customer order,
+ * read from IDX_TRANSACTION_CUSTOMER_DATE with a JDBC fetch size, summed per customer, then the archive-only
+ * customers of the same ID range. The connection is returned before the page is written, so a slow client
+ * holds back the next page rather than a connection and a transaction, and memory stays the size of a page
+ * whatever the number of customers. Customers with transactions outside the window, or only in
+ * TRANSACTION_ARCHIVE, are exported with zero points, as the rewards endpoint reports them.
+ *
+ * Pages are read at different times, so the export is not one snapshot: a customer is exported as of the
+ * moment its page was read.
+ */
+@Service
+public class RewardsExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardsExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter jsonWriter;
+    private final String exportSql;
+    private final int pageRows;
+
+    @Autowired
+    public RewardsExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                RewardRules rewardRules,
+                                @Value("${rewards.export.fetch-size:1000}") int fetchSize,
+                                @Value("${rewards.export.page-rows:10000}") int pageRows) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Some drivers only stream with a fetch size inside a transaction, so the scan runs in a read-only one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Each statement goes to the shared, buffered response writer, which must be neither closed nor flushed
+        this.jsonWriter = objectMapper.writerFor(RewardsDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.exportSql = exportSql(rewardRules);
+        this.pageRows = pageRows;
+    }
+
+    /**
+     * Scores the transaction rows of a customer ID range, tagged with their month offset in the window (0
+     * outside it), ordered by customer so the index is read in order and nothing is sorted.
+     */
+    public static String exportSql(RewardRules rewardRules) {
+        return "SELECT t.CUSTOMER_ID, "
+                + "CASE WHEN t.TRANSACTION_DATE BETWEEN ? AND ? THEN 1 "
+                + "WHEN t.TRANSACTION_DATE BETWEEN ? AND ? THEN 2 "
+                + "WHEN t.TRANSACTION_DATE BETWEEN ? AND ? THEN 3 ELSE 0 END, "
+                + rewardRules.toSql("t.AMOUNT", "t.TRANSACTION_DATE") + " "
+                + "FROM TRANSACTION t WHERE t.CUSTOMER_ID > ? AND t.CUSTOMER_ID <= ? ORDER BY t.CUSTOMER_ID";
+    }
+
+    /**
+     * Finds the customer of the row a page's worth of rows after {@code CUSTOMER_ID > ?}, walking the
+     * customer index of the given table.
+     */
+    public static String pageEndSql(String table) {
+        return "SELECT CUSTOMER_ID FROM " + table + " WHERE CUSTOMER_ID > ? ORDER BY CUSTOMER_ID "
+                + "OFFSET ? ROWS FETCH NEXT 1 ROW ONLY";
+    }
+
+    /**
+     * Lists the customers of an ID range that have archived transactions.
+     */
+    public static final String ARCHIVED_CUSTOMERS_SQL = "SELECT DISTINCT CUSTOMER_ID FROM TRANSACTION_ARCHIVE "
+            + "WHERE CUSTOMER_ID > ? AND CUSTOMER_ID <= ? ORDER BY CUSTOMER_ID";
+
+    /**
+     * Writes the statements for the three months before {@code currentMonth}. The stream is flushed but
+     * not closed.
+     *
+     * @param out          where to write
+     * @param ndjson       {@code true} for one {@link RewardsDTO} JSON object per line, {@code false} for CSV
+     * @param currentMonth the month the window is relative to
+     * @return the number of customers written
+     */
+    public long export(OutputStream out, boolean ndjson, YearMonth currentMonth) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        StatementWriter statements = ndjson
+                ? new JsonStatementWriter(jsonWriter, writer, currentMonth)
+                : new CsvStatementWriter(writer, currentMonth);
+        Timestamp[] window = new Timestamp[6];
+        for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+            YearMonth month = currentMonth.minusMonths(monthOffset);
+            window[2 * monthOffset - 2] = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+            window[2 * monthOffset - 1] = Timestamp.valueOf(month.atEndOfMonth().atTime(23, 59, 59));
+        }
+
+        long customers = 0;
+        long afterId = Long.MIN_VALUE;
+        while (afterId != Long.MAX_VALUE) {
+            Page page = readPage(afterId, window);
+            for (Map.Entry<Long, long[]> customer : page.pointsById.entrySet()) {
+                statements.write(customer.getKey(), customer.getValue());
+            }
+            customers += page.pointsById.size();
+            afterId = page.lastId;
+            // Hand the page to the client before the next one is read
+            writer.flush();
+        }
+        statements.close();
+        logger.info("Exported rewards of {} customers for {} in {} ms", customers, currentMonth,
+                (System.nanoTime() - started) / 1_000_000);
+        return customers;
+    }
+
+    /**
+     * Reads and sums the customers after {@code afterId}, up to a page's worth of rows in each table, in one
+     * read-only transaction.
+     */
+    private Page readPage(long afterId, Timestamp[] window) {
+        return transactionTemplate.execute(status -> {
+            long lastId = Math.min(pageEnd("TRANSACTION", afterId), pageEnd("TRANSACTION_ARCHIVE", afterId));
+            Page page = new Page(lastId);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(exportSql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                for (int i = 0; i < window.length; i++) {
+                    statement.setTimestamp(i + 1, window[i]);
+                }
+                statement.setLong(window.length + 1, afterId);
+                statement.setLong(window.length + 2, lastId);
+                return statement;
+            }, (ResultSet resultSet) -> {
+                page.pointsById.computeIfAbsent(resultSet.getLong(1), id -> new long[4])[resultSet.getInt(2)]
+                        += resultSet.getLong(3);
+            });
+            // Read after TRANSACTION: a customer whose rows the roll-over moves in between is then found here
+            jdbcTemplate.query(ARCHIVED_CUSTOMERS_SQL, (ResultSet resultSet) -> {
+                page.pointsById.putIfAbsent(resultSet.getLong(1), new long[4]);
+            }, afterId, lastId);
+            return page;
+        });
+    }
+
+    /**
+     * Returns the last customer ID of the page after {@code afterId} in one table, or {@link Long#MAX_VALUE}
+     * when the rest of the table fits in the page. The page ends with all of that customer's rows.
+     */
+    private long pageEnd(String table, long afterId) {
+        List<Long> end = jdbcTemplate.queryForList(pageEndSql(table), Long.class, afterId, pageRows - 1);
+        return end.isEmpty() ? Long.MAX_VALUE : end.get(0);
+    }
+
+    /**
+     * The statements of one page, in customer order, and the last customer ID the page covers.
+     */
+    private static final class Page {
+        private final long lastId;
+        private final TreeMap<Long, long[]> pointsById = new TreeMap<>();
+
+        private Page(long lastId) {
+            this.lastId = lastId;
+        }
+    }
+
+    private interface StatementWriter {
+        void write(long customerId, long[] points) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static final class CsvStatementWriter implements StatementWriter {
+        private final Writer writer;
+
+        private CsvStatementWriter(Writer writer, YearMonth currentMonth) throws IOException {
+            this.writer = writer;
+            writer.write("customerId");
+            for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+                writer.write(',');
+                writer.write(RewardsDTO.monthName(currentMonth.minusMonths(monthOffset)));
+            }
+            writer.write(",totalRewards\n");
+        }
+
+        @Override
+        public void write(long customerId, long[] points) throws IOException {
+            writer.write(Long.toString(customerId));
+            for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+                writer.write(',');
+                writer.write(Long.toString(points[monthOffset]));
+            }
+            writer.write(',');
+            writer.write(Long.toString(points[1] + points[2] + points[3]));
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class JsonStatementWriter implements StatementWriter {
+        private final ObjectWriter jsonWriter;
+        private final Writer writer;
+        private final String[] monthNames = new String[4];
+
+        private JsonStatementWriter(ObjectWriter jsonWriter, Writer writer, YearMonth currentMonth) {
+            this.jsonWriter = jsonWriter;
+            this.writer = writer;
+            for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+                monthNames[monthOffset] = RewardsDTO.monthName(currentMonth.minusMonths(monthOffset));
+            }
+        }
+
+        @Override
+        public void write(long customerId, long[] points) throws IOException {
+            Map<String, Long> monthlyRewards = new LinkedHashMap<>();
+            for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+                monthlyRewards.put(monthNames[monthOffset], points[monthOffset]);
+            }
+            jsonWriter.writeValue(writer, RewardsDTO.builder()
+                    .customerId(customerId)
+                    .monthlyRewards(monthlyRewards)
+                    .totalRewards(points[1] + points[2] + points[3])
+                    .build());
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
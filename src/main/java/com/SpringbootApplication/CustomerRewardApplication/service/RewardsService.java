@@ -1,13 +1,27 @@
 package com.SpringbootApplication.CustomerRewardApplication.service;
 
+import com.SpringbootApplication.CustomerRewardApplication.payload.BatchRewardsDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
 
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 public interface RewardsService {
     RewardsDTO getRewardsByCustomerId(Long customerId);
 
+    Optional<RewardsDTO> getRewardsIfModified(Long customerId, Predicate<String> notModified);
+
     List<RewardsDTO> getRewardsByCustomerId(List<Long> customerIds);
+
+    BatchRewardsDTO getRewardsForCustomers(List<Long> customerIds);
+
+    int precomputeRewards(Collection<Long> customerIds, YearMonth month);
+
     TransactionDTO saveTransaction(TransactionDTO transactionDTO);
+
+    List<TransactionDTO> saveTransactions(List<TransactionDTO> transactionDTOs);
 }
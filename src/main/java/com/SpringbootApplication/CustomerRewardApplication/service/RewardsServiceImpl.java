@@ -1,22 +1,45 @@
 package com.SpringbootApplication.CustomerRewardApplication.service;
 
+import com.SpringbootApplication.CustomerRewardApplication.cache.RewardsCache;
 import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.event.TransactionsSavedEvent;
 import com.SpringbootApplication.CustomerRewardApplication.exception.CustomerNotFoundException;
+import com.SpringbootApplication.CustomerRewardApplication.mapper.TransactionMapper;
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.payload.BatchRewardsDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.MonthlyRewardPoints;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
 import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
-import org.modelmapper.ModelMapper;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.SpringbootApplication.CustomerRewardApplication.store.InMemoryTransactionStore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,106 +48,343 @@ public class RewardsServiceImpl implements RewardsService {
     private static final Logger logger = LoggerFactory.getLogger(RewardsServiceImpl.class);
 
     private final TransactionRepository transactionRepository;
-    private final ModelMapper modelMapper;
+    private final TransactionArchiveRepository archiveRepository;
+    private final RewardLedgerService rewardLedgerService;
+    private final RewardsVersionService rewardsVersionService;
+    private final RewardsCache rewardsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RewardsMetrics rewardsMetrics;
+    private final QueryFanOut queryFanOut;
+    private final InMemoryTransactionStore transactionStore;
+    private final String rulesFingerprint;
+    private final int batchChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${rewards.ingest.batch-size:500}")
+    private int ingestBatchSize = 500;
+
+    @Value("${rewards.ledger.read-enabled:false}")
+    private boolean ledgerReadEnabled;
 
     @Autowired
-    public RewardsServiceImpl(TransactionRepository transactionRepository, ModelMapper modelMapper) {
+    public RewardsServiceImpl(TransactionRepository transactionRepository, TransactionArchiveRepository archiveRepository,
+                              RewardLedgerService rewardLedgerService, RewardsVersionService rewardsVersionService,
+                              RewardsCache rewardsCache, ApplicationEventPublisher eventPublisher, RewardsMetrics rewardsMetrics,
+                              QueryFanOut queryFanOut, InMemoryTransactionStore transactionStore,
+                              RewardRules rewardRules,
+                              @Value("${rewards.batch.chunk-size:1000}") int batchChunkSize) {
+        if (batchChunkSize <= 0) {
+            throw new IllegalArgumentException("rewards.batch.chunk-size must be positive, got " + batchChunkSize);
+        }
         this.transactionRepository = transactionRepository;
-        this.modelMapper = modelMapper;
+        this.archiveRepository = archiveRepository;
+        this.rewardLedgerService = rewardLedgerService;
+        this.rewardsVersionService = rewardsVersionService;
+        this.rewardsCache = rewardsCache;
+        this.eventPublisher = eventPublisher;
+        this.rewardsMetrics = rewardsMetrics;
+        this.queryFanOut = queryFanOut;
+        this.transactionStore = transactionStore;
+        // The rendered SQL covers every version, threshold and rate of the rules
+        this.rulesFingerprint = Integer.toHexString(rewardRules.toSql("AMOUNT", "TRANSACTION_DATE").hashCode());
+        this.batchChunkSize = batchChunkSize;
     }
 
     @Override
     public RewardsDTO getRewardsByCustomerId(Long customerId) {
-        // Validate if the customer exists
-        if (!transactionRepository.existsByCustomerId(customerId)) {
-            throw new CustomerNotFoundException("Customer with ID " + customerId + " not found.");
+        YearMonth month = YearMonth.now();
+        return rewardsMetrics.timeLookup(() -> rewardsCache.get(customerId, month, id -> loadRewards(id, month)));
+    }
+
+    /**
+     * Returns a customer's rewards unless the caller's copy is still current. The version is checked before any
+     * rewards are computed: the version cached with the rewards when there are cached rewards, so the two always
+     * agree, and otherwise the current one, which is read once and then stamped on the rewards computed.
+     *
+     * @param customerId  the customer to look up
+     * @param notModified whether the caller already has the rewards of the given version
+     * @return the rewards, or empty when {@code notModified} accepted their version
+     */
+    @Override
+    public Optional<RewardsDTO> getRewardsIfModified(Long customerId, Predicate<String> notModified) {
+        return rewardsMetrics.timeLookup(() -> lookupIfModified(customerId, notModified));
+    }
+
+    private Optional<RewardsDTO> lookupIfModified(Long customerId, Predicate<String> notModified) {
+        YearMonth month = YearMonth.now();
+        RewardsDTO cached = rewardsCache.getIfPresent(customerId, month);
+        if (cached != null) {
+            return cached.getVersion() != null && notModified.test(cached.getVersion())
+                    ? Optional.empty()
+                    : Optional.of(cached);
         }
-        LocalDate now = LocalDate.now();
-        String lastMonth = capitalizeMonth(now.minusMonths(1).getMonth().name());
-        String secondLastMonth = capitalizeMonth(now.minusMonths(2).getMonth().name());
-        String thirdLastMonth = capitalizeMonth(now.minusMonths(3).getMonth().name());
+        // Read before the points, so a concurrent write can make the version older than the rewards, never newer
+        String version = formatVersion(findVersion(customerId), month);
+        if (version != null && notModified.test(version)) {
+            return Optional.empty();
+        }
+        return Optional.of(rewardsCache.get(customerId, month, id -> loadRewards(id, month, version)));
+    }
 
-        // Calculate rewards for each month
-        long lastMonthPoints = calculateMonthlyRewards(fetchTransactions(customerId, 1));
-        long secondMonthPoints = calculateMonthlyRewards(fetchTransactions(customerId, 2));
-        long thirdMonthPoints = calculateMonthlyRewards(fetchTransactions(customerId, 3));
+    private RewardsDTO loadRewards(Long customerId, YearMonth month) {
+        // Read before the points, so a concurrent write can make the version older than the rewards, never newer
+        return loadRewards(customerId, month, formatVersion(findVersion(customerId), month));
+    }
 
-        Map<String, Long> monthlyRewards = new LinkedHashMap<>();
-        monthlyRewards.put(lastMonth, lastMonthPoints);
-        monthlyRewards.put(secondLastMonth, secondMonthPoints);
-        monthlyRewards.put(thirdLastMonth, thirdMonthPoints);
+    private RewardsDTO loadRewards(Long customerId, YearMonth month, String version) {
+        long[] points = loadMonthlyPoints(Collections.singletonList(customerId), month).get(customerId);
 
-        // Return rewards details
-        return RewardsDTO.builder()
-                .customerId(customerId)
-                .monthlyRewards(monthlyRewards)
-                .totalRewards(lastMonthPoints + secondMonthPoints + thirdMonthPoints)
-                .build();
+        // An empty window is the only case that needs the existence check
+        if (points == null) {
+            if (!customerExists(customerId)) {
+                rewardsMetrics.recordCustomersNotFound("single", 1);
+                throw new CustomerNotFoundException("Customer with ID " + customerId + " not found.");
+            }
+            points = new long[4];
+        }
+        RewardsDTO rewards = buildRewards(customerId, points, month);
+        rewards.setVersion(version);
+        return rewards;
+    }
+
+    private long findVersion(Long customerId) {
+        return transactionStore.isEnabled()
+                ? transactionStore.findVersion(customerId)
+                : rewardsVersionService.findVersion(customerId);
+    }
+
+    /**
+     * Renders the strong ETag of a customer's rewards: the window month, the customer's rewards version and the
+     * reward rules. Saved transactions, ledger repairs and archive moves raise the version. Customers without a
+     * version have no ETag.
+     */
+    private String formatVersion(long version, YearMonth month) {
+        if (version == 0) {
+            return null;
+        }
+        return "\"" + month + "-" + version + "-" + rulesFingerprint + "\"";
+    }
+
+    /**
+     * Computes and caches the rewards of the given customers for {@code month}, in chunks of
+     * {@code rewards.batch.chunk-size} that run in parallel. Each customer goes through the same cache loader
+     * as a single lookup, so a write that commits meanwhile still invalidates what was computed before it.
+     */
+    @Override
+    public int precomputeRewards(Collection<Long> customerIds, YearMonth month) {
+        List<List<Long>> chunks = chunk(new ArrayList<>(new LinkedHashSet<>(customerIds)));
+        int precomputed = 0;
+        for (Integer chunkCount : queryFanOut.mapAll(chunks, chunk -> {
+            for (Long customerId : chunk) {
+                rewardsCache.get(customerId, month, id -> loadRewards(id, month));
+            }
+            return chunk.size();
+        })) {
+            precomputed += chunkCount;
+        }
+        return precomputed;
     }
 
     @Override
     public List<RewardsDTO> getRewardsByCustomerId(List<Long> customerIds) {
+        BatchRewardsDTO batch = getRewardsForCustomers(customerIds);
+        if (!batch.getNotFoundCustomerIds().isEmpty()) {
+            throw new CustomerNotFoundException("Customer with ID " + batch.getNotFoundCustomerIds().get(0) + " not found.");
+        }
+        Map<Long, RewardsDTO> rewardsById = batch.getRewards().stream()
+                .collect(Collectors.toMap(RewardsDTO::getCustomerId, Function.identity()));
         return customerIds.stream()
-                .map(this::getRewardsByCustomerId)
+                .map(rewardsById::get)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public TransactionDTO saveTransaction(TransactionDTO transactionDTO) {
+    public BatchRewardsDTO getRewardsForCustomers(List<Long> customerIds) {
+        return rewardsMetrics.timeBatchLookup(() -> computeRewardsForCustomers(customerIds));
+    }
 
-            transactionDTO.setTransactionId(null);
-            Transaction transaction = modelMapper.map(transactionDTO, Transaction.class);
+    private BatchRewardsDTO computeRewardsForCustomers(List<Long> customerIds) {
+        // Every chunk uses the same window, even if the month changes while the batch runs
+        YearMonth month = YearMonth.now();
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(customerIds));
+        List<List<Long>> chunks = chunk(distinctIds);
 
-            if (transactionDTO.getTransactionDate() != null) {
-                transaction.setTransactionDate(convertToTimestamp(transactionDTO.getTransactionDate()));
+        // Chunks are independent, so their queries can overlap
+        List<RewardsDTO> rewards = new ArrayList<>(distinctIds.size());
+        List<Long> notFound = new ArrayList<>();
+        for (BatchRewardsDTO chunkRewards : queryFanOut.mapAll(chunks, chunk -> computeChunkRewards(chunk, month))) {
+            rewards.addAll(chunkRewards.getRewards());
+            notFound.addAll(chunkRewards.getNotFoundCustomerIds());
+        }
+        logger.debug("Computed rewards for {} customers in {} chunks, {} not found", rewards.size(), chunks.size(), notFound.size());
+        if (!notFound.isEmpty()) {
+            rewardsMetrics.recordCustomersNotFound("batch", notFound.size());
+        }
+
+        return BatchRewardsDTO.builder()
+                .rewards(rewards)
+                .notFoundCustomerIds(notFound)
+                .build();
+    }
+
+    private List<List<Long>> chunk(List<Long> customerIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < customerIds.size(); from += batchChunkSize) {
+            chunks.add(customerIds.subList(from, Math.min(from + batchChunkSize, customerIds.size())));
+        }
+        return chunks;
+    }
+
+    private BatchRewardsDTO computeChunkRewards(List<Long> chunk, YearMonth month) {
+        Map<Long, long[]> pointsById = loadMonthlyPoints(chunk, month);
+
+        // Customers without rewards in the window are either inactive or unknown
+        List<Long> withoutRewards = chunk.stream()
+                .filter(id -> !pointsById.containsKey(id))
+                .collect(Collectors.toList());
+        Set<Long> existing = withoutRewards.isEmpty()
+                ? Collections.emptySet()
+                : findExistingCustomerIds(withoutRewards);
+
+        List<RewardsDTO> rewards = new ArrayList<>(chunk.size());
+        List<Long> notFound = new ArrayList<>();
+        for (Long customerId : chunk) {
+            long[] points = pointsById.get(customerId);
+            if (points != null) {
+                rewards.add(buildRewards(customerId, points, month));
+            } else if (existing.contains(customerId)) {
+                rewards.add(buildRewards(customerId, new long[4], month));
+            } else {
+                notFound.add(customerId);
             }
+        }
+        return BatchRewardsDTO.builder()
+                .rewards(rewards)
+                .notFoundCustomerIds(notFound)
+                .build();
+    }
 
-            Transaction savedTransaction = transactionRepository.save(transaction);
-    TransactionDTO savedDTO = modelMapper.map(savedTransaction, TransactionDTO.class);
-            savedDTO.setTransactionDate(new Date(savedTransaction.getTransactionDate().getTime()));
+    /**
+     * Checks the hot table first: a row moved by a concurrent roll-over is already in the archive by the time
+     * it is gone from TRANSACTION.
+     */
+    private boolean customerExists(Long customerId) {
+        if (transactionStore.isEnabled()) {
+            return transactionStore.exists(customerId);
+        }
+        return transactionRepository.existsByCustomerId(customerId) || archiveRepository.existsByCustomerId(customerId);
+    }
 
-            return savedDTO;
-}
+    private Set<Long> findExistingCustomerIds(List<Long> customerIds) {
+        if (transactionStore.isEnabled()) {
+            return transactionStore.findExistingCustomerIds(customerIds);
+        }
+        Set<Long> existing = new HashSet<>(transactionRepository.findExistingCustomerIds(customerIds));
+        if (existing.size() < customerIds.size()) {
+            List<Long> archivedOnly = customerIds.stream()
+                    .filter(id -> !existing.contains(id))
+                    .collect(Collectors.toList());
+            existing.addAll(archiveRepository.findExistingCustomerIds(archivedOnly));
+        }
+        return existing;
+    }
 
-    private Timestamp convertToTimestamp(Date date) {
-        return new Timestamp(date.getTime());
+    @Override
+    @Transactional
+    public TransactionDTO saveTransaction(TransactionDTO transactionDTO) {
+        Transaction savedTransaction = transactionRepository.save(TransactionMapper.toEntity(transactionDTO));
+        rewardLedgerService.record(Collections.singletonList(savedTransaction));
+        rewardsVersionService.recordSaved(Collections.singletonList(savedTransaction.getCustomerId()));
+        eventPublisher.publishEvent(new TransactionsSavedEvent(Collections.singletonList(savedTransaction)));
+        return TransactionMapper.toDto(savedTransaction);
     }
 
-    private List<Transaction> fetchTransactions(Long customerId, int monthOffset) {
+    @Override
+    @Transactional
+    public List<TransactionDTO> saveTransactions(List<TransactionDTO> transactionDTOs) {
+        rewardsMetrics.recordIngestBatch(transactionDTOs.size());
+        List<TransactionDTO> savedDTOs = new ArrayList<>(transactionDTOs.size());
+        List<Transaction> batch = new ArrayList<>(ingestBatchSize);
+        for (TransactionDTO transactionDTO : transactionDTOs) {
+            Transaction transaction = TransactionMapper.toEntity(transactionDTO);
+            entityManager.persist(transaction);
+            savedDTOs.add(TransactionMapper.toDto(transaction));
+            batch.add(transaction);
 
-        Date start = getStartOfMonthOffset(monthOffset);
-        Date end = getEndOfMonthOffset(monthOffset);
-        return transactionRepository.findAllByCustomerIdAndTransactionDateBetween(customerId, start, end);
+            // Flush each full batch as one JDBC batch and keep the persistence context small
+            if (batch.size() == ingestBatchSize) {
+                flushBatch(batch);
+            }
+        }
+        flushBatch(batch);
+        logger.debug("Saved {} transactions in batches of {}", savedDTOs.size(), ingestBatchSize);
+        return savedDTOs;
     }
 
-    private long calculateMonthlyRewards(List<Transaction> transactions) {
-        return transactions.stream()
-                .mapToLong(this::calculateRewardPoints)
-                .sum();
+    private void flushBatch(List<Transaction> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        rewardsMetrics.timeIngestFlush(() -> {
+            entityManager.flush();
+            rewardLedgerService.record(batch);
+            rewardsVersionService.recordSaved(batch.stream().map(Transaction::getCustomerId).collect(Collectors.toSet()));
+        });
+        eventPublisher.publishEvent(new TransactionsSavedEvent(batch));
+        entityManager.clear();
+        batch.clear();
     }
 
-    private long calculateRewardPoints(Transaction transaction) {
-        double amount = transaction.getTransactionAmount();
-        if (amount > 100) {
-            return (long) ((amount - 100) * 2 + 50);
-        } else if (amount > 50) {
-            return (long) (amount - 50);
+    /**
+     * Loads the reward points of the given customers for the three months before {@code month}, indexed by
+     * month offset. Customers without transactions in the window are absent from the result. The window lies
+     * in the hot partition, so TRANSACTION_ARCHIVE is never read here.
+     */
+    private Map<Long, long[]> loadMonthlyPoints(List<Long> customerIds, YearMonth month) {
+        if (transactionStore.isEnabled()) {
+            return transactionStore.findPointsByMonthOffset(customerIds, month);
         }
-        return 0;
+        if (ledgerReadEnabled) {
+            return rewardLedgerService.findPointsByMonthOffset(customerIds, month);
+        }
+
+        // Score the whole three-month window in one grouped query
+        Map<Long, long[]> pointsById = new HashMap<>();
+        long transactionsScanned = 0;
+        for (MonthlyRewardPoints bucket : transactionRepository.sumRewardPointsByMonthForCustomers(customerIds,
+                getStartOfMonthOffset(month, 1), getEndOfMonthOffset(month, 1),
+                getStartOfMonthOffset(month, 2), getEndOfMonthOffset(month, 2),
+                getStartOfMonthOffset(month, 3), getEndOfMonthOffset(month, 3))) {
+            pointsById.computeIfAbsent(bucket.getCustomerId(), id -> new long[4])[bucket.getMonthOffset()] = bucket.getPoints();
+            transactionsScanned += bucket.getTransactionCount();
+        }
+        rewardsMetrics.recordTransactionsScanned(transactionsScanned);
+        return pointsById;
     }
 
-    private Date getStartOfMonthOffset(int monthOffset) {
-        LocalDate date = LocalDate.now().minusMonths(monthOffset);
-        return Date.from(date.withDayOfMonth(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    private RewardsDTO buildRewards(Long customerId, long[] points, YearMonth month) {
+        Map<String, Long> monthlyRewards = new LinkedHashMap<>();
+        monthlyRewards.put(RewardsDTO.monthName(month.minusMonths(1)), points[1]);
+        monthlyRewards.put(RewardsDTO.monthName(month.minusMonths(2)), points[2]);
+        monthlyRewards.put(RewardsDTO.monthName(month.minusMonths(3)), points[3]);
+
+        // Return rewards details
+        return RewardsDTO.builder()
+                .customerId(customerId)
+                .monthlyRewards(monthlyRewards)
+                .totalRewards(points[1] + points[2] + points[3])
+                .build();
     }
 
-    private Date getEndOfMonthOffset(int monthOffset) {
-        LocalDate date = LocalDate.now().minusMonths(monthOffset);
-        return Date.from(date.withDayOfMonth(date.lengthOfMonth()).atTime(23, 59, 59)
-                .atZone(ZoneId.systemDefault()).toInstant());
+    private Date getStartOfMonthOffset(YearMonth month, int monthOffset) {
+        LocalDate date = month.minusMonths(monthOffset).atDay(1);
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
 
-    private String capitalizeMonth(String month) {
-        return month.charAt(0) + month.substring(1).toLowerCase();
+    private Date getEndOfMonthOffset(YearMonth month, int monthOffset) {
+        LocalDate date = month.minusMonths(monthOffset).atEndOfMonth();
+        return Date.from(date.atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
     }
 }
\ No newline at end of file
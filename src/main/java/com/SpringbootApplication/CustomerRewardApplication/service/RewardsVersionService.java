@@ -0,0 +1,107 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerRewardsVersion;
+import com.SpringbootApplication.CustomerRewardApplication.event.RewardsVersionsChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads and raises the per-customer {@link CustomerRewardsVersion}.
+ *
+ * Versions are raised in the transaction that makes the change, so a version is never newer than the data
+ * it was committed with. Customers are updated in ID order, so concurrent writers take the row locks in the
+ * same order. As in the ledger, rows are written with plain JDBC so that a lost race on a first insert can be
+ * rolled back to a savepoint without failing the surrounding transaction.
+ */
+@Service
+public class RewardsVersionService {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private static final String FIND_SQL = "SELECT VERSION FROM CUSTOMER_REWARDS_VERSION WHERE CUSTOMER_ID = ?";
+    private static final String RAISE_SQL = "UPDATE CUSTOMER_REWARDS_VERSION SET VERSION = VERSION + 1 "
+            + "WHERE CUSTOMER_ID = ?";
+    private static final String INSERT_SQL = "INSERT INTO CUSTOMER_REWARDS_VERSION (CUSTOMER_ID, VERSION) VALUES (?, 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RewardsVersionService(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Returns the version of a customer's rewards, or 0 when the customer has none.
+     */
+    public long findVersion(Long customerId) {
+        List<Long> versions = jdbcTemplate.queryForList(FIND_SQL, Long.class, customerId);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    /**
+     * Raises the versions of customers that have just saved transactions, creating them when missing. Must
+     * run inside the transaction that saved them, which publishes its own {@code TransactionsSavedEvent}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSaved(Collection<Long> customerIds) {
+        for (Long customerId : new TreeSet<>(customerIds)) {
+            if (jdbcTemplate.update(RAISE_SQL, customerId) == 0 && !insertUnlessPresent(customerId)) {
+                jdbcTemplate.update(RAISE_SQL, customerId);
+            }
+        }
+    }
+
+    /**
+     * Raises the versions of customers whose rewards may have changed without a saved transaction, and
+     * announces it after commit. Customers without a version have never had an ETag and are left alone.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void raise(Collection<Long> customerIds) {
+        Set<Long> sorted = new TreeSet<>(customerIds);
+        if (sorted.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(RAISE_SQL, sorted, sorted.size(), (statement, customerId) -> statement.setLong(1, customerId));
+        eventPublisher.publishEvent(new RewardsVersionsChangedEvent(sorted));
+    }
+
+    /**
+     * Inserts a customer's first version unless a concurrent transaction has committed one meanwhile.
+     *
+     * @return whether the row was inserted
+     */
+    private boolean insertUnlessPresent(Long customerId) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                insert.setLong(1, customerId);
+                insert.executeUpdate();
+                return true;
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                return false;
+            } finally {
+                connection.releaseSavepoint(savepoint);
+            }
+        });
+    }
+}
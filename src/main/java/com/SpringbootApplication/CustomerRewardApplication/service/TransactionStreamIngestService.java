@@ -0,0 +1,378 @@
+package com.SpringbootApplication.CustomerRewardApplication.service;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionErrorDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionReportDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests transaction uploads of any size as NDJSON or CSV.
+ *
+ * The body is read with Jackson's streaming parser, one record at a time: each record is bound, validated against
+ * the {@link TransactionDTO} constraints and buffered until a batch is full, which is then saved through
+ * {@link RewardsService#saveTransactions(List)}. No record may be longer than
+ * {@code rewards.ingest.stream.max-record-size} bytes (characters for CSV), and no single value is buffered past
+ * that, so memory use is bounded by the batch size, the record size and the error report cap, not by the upload.
+ * CSV values may be quoted and span lines.
+ *
+ * Bad records are reported by line and skipped instead of failing the upload. An NDJSON line that cannot be parsed
+ * is skipped up to the next line break; a CSV row that cannot be bound is skipped to the end of the row. When a
+ * batch cannot be saved it is saved again in halves, so only the records that fail on their own are rejected.
+ */
+@Service
+public class TransactionStreamIngestService {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStreamIngestService.class);
+
+    private static final int INPUT_BUFFER_BYTES = 8192;
+
+    private final RewardsService rewardsService;
+    private final Validator validator;
+    private final int maxRecordSize;
+    private final JsonFactory jsonFactory;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+
+    @Value("${rewards.ingest.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${rewards.ingest.stream.max-errors:1000}")
+    private int maxErrors = 1000;
+
+    @Autowired
+    public TransactionStreamIngestService(RewardsService rewardsService, Validator validator, ObjectMapper objectMapper,
+                                          @Value("${rewards.ingest.stream.max-record-size:65536}") int maxRecordSize) {
+        if (maxRecordSize <= 0) {
+            throw new IllegalArgumentException("rewards.ingest.stream.max-record-size must be positive");
+        }
+        this.rewardsService = rewardsService;
+        this.validator = validator;
+        this.maxRecordSize = maxRecordSize;
+        // A value longer than a record is rejected while it is read, before it is buffered whole
+        StreamReadConstraints constraints = StreamReadConstraints.builder().maxStringLength(maxRecordSize).build();
+        this.jsonFactory = objectMapper.getFactory().copy()
+                .setStreamReadConstraints(constraints)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        this.jsonReader = objectMapper.readerFor(TransactionDTO.class);
+        CsvMapper csvMapper = new CsvMapper(CsvFactory.builder()
+                .streamReadConstraints(constraints)
+                .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+                .build());
+        // Columns are named by the header row; like NDJSON fields, columns the DTO does not have are ignored
+        this.csvReader = csvMapper.readerFor(TransactionDTO.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .with(CsvParser.Feature.TRIM_SPACES)
+                .with(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Reads, validates and saves every record of the upload.
+     *
+     * @param body        the upload
+     * @param contentType {@code application/x-ndjson}, or {@code text/csv} with a header row naming
+     *                    {@code customerId}, {@code transactionAmount} and {@code transactionDate}
+     * @return a report with the counts and the errors per line
+     */
+    public IngestionReportDTO ingest(InputStream body, MediaType contentType) throws IOException {
+        Report report = new Report();
+        Batch batch = new Batch();
+        if (TEXT_CSV.isCompatibleWith(contentType)) {
+            readCsv(body, batch, report);
+        } else {
+            readNdjson(body, batch, report);
+        }
+        batch.save(report);
+        logger.info("Streamed {} lines: {} saved, {} rejected", report.linesRead, report.saved, report.rejected);
+
+        return IngestionReportDTO.builder()
+                .linesRead(report.linesRead)
+                .saved(report.saved)
+                .rejected(report.rejected)
+                .errors(report.errors)
+                .errorsTruncated(report.errorsTruncated)
+                .build();
+    }
+
+    /**
+     * Reads NDJSON records. A line that cannot be parsed leaves the parser in no state to go on, so it is
+     * abandoned and a new one is started on the next line.
+     */
+    private void readNdjson(InputStream body, Batch batch, Report report) throws IOException {
+        LineSkippingInput input = new LineSkippingInput(body);
+        long lineOffset = 0;
+        while (true) {
+            try (JsonParser parser = jsonFactory.createParser(input)) {
+                MappingIterator<TransactionDTO> records = jsonReader.readValues(parser);
+                if (readRecords(parser, records, lineOffset, batch, report)) {
+                    return;
+                }
+                lineOffset += parser.currentLocation().getLineNr();
+                input.skipLine(parser);
+            }
+        }
+    }
+
+    /**
+     * Reads CSV records. The first row is the header; without one no record can be read. A row that cannot be
+     * bound is skipped by the parser itself, which knows where the row ends even when quoted values span lines.
+     */
+    private void readCsv(InputStream body, Batch batch, Report report) throws IOException {
+        try (JsonParser parser = csvReader.createParser(body)) {
+            try {
+                parser.nextToken();
+            } catch (JsonProcessingException e) {
+                report.linesRead = linesRead(0, parser.currentLocation());
+                if (report.linesRead > 0) {
+                    report.reject(1, "Unparseable header: " + e.getOriginalMessage());
+                }
+                return;
+            }
+            MappingIterator<TransactionDTO> records = csvReader.readValues(parser);
+            if (!readRecords(parser, records, 0, batch, report)) {
+                // The rest of the body cannot be split into rows, such as after a quote that is never closed
+                report.linesRead = linesRead(0, parser.currentLocation());
+            }
+        }
+    }
+
+    /**
+     * Reads records until the input ends or the parser cannot go on.
+     *
+     * @param lineOffset the number of lines before the parser's first line
+     * @return {@code true} at the end of the input, {@code false} when the parser cannot go on
+     */
+    private boolean readRecords(JsonParser parser, MappingIterator<TransactionDTO> records, long lineOffset,
+                                Batch batch, Report report) throws IOException {
+        while (true) {
+            JsonLocation start;
+            try {
+                if (!records.hasNextValue()) {
+                    report.linesRead = linesRead(lineOffset, parser.currentLocation());
+                    return true;
+                }
+                start = parser.currentLocation();
+            } catch (JsonProcessingException e) {
+                report.reject(lineOffset + parser.currentLocation().getLineNr(),
+                        "Unparseable record: " + e.getOriginalMessage());
+                return false;
+            }
+
+            long line = lineOffset + start.getLineNr();
+            TransactionDTO transactionDTO;
+            try {
+                transactionDTO = records.nextValue();
+            } catch (JsonProcessingException e) {
+                report.reject(line, "Unparseable record: " + e.getOriginalMessage());
+                if (parser instanceof CsvParser) {
+                    continue;
+                }
+                return false;
+            }
+            if (offset(parser.currentLocation()) - offset(start) > maxRecordSize) {
+                report.reject(line, "Record is longer than " + maxRecordSize + " bytes.");
+                continue;
+            }
+            Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(transactionDTO);
+            if (!violations.isEmpty()) {
+                report.reject(line, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(" ")));
+                continue;
+            }
+
+            batch.add(transactionDTO, line);
+            if (batch.records.size() == batchSize) {
+                batch.save(report);
+            }
+        }
+    }
+
+    /**
+     * Saves records, halving them on failure until each failing record is rejected on its own line. The cause is
+     * logged rather than reported, as it may carry database details.
+     */
+    private void save(List<TransactionDTO> records, List<Long> lines, Report report) {
+        try {
+            rewardsService.saveTransactions(records);
+            report.saved += records.size();
+        } catch (RuntimeException e) {
+            if (records.size() == 1) {
+                logger.warn("Failed to save line {}", lines.get(0), e);
+                report.reject(lines.get(0), "Transaction could not be saved.");
+                return;
+            }
+            logger.debug("Failed to save lines {}-{}, retrying in halves", lines.get(0), lines.get(lines.size() - 1),
+                    e);
+            int half = records.size() / 2;
+            save(records.subList(0, half), lines.subList(0, half), report);
+            save(records.subList(half, records.size()), lines.subList(half, lines.size()), report);
+        }
+    }
+
+    /**
+     * Counts the lines up to a location, not counting an empty line after a final line break.
+     */
+    private static long linesRead(long lineOffset, JsonLocation location) {
+        return lineOffset + location.getLineNr() - (location.getColumnNr() == 1 ? 1 : 0);
+    }
+
+    private static long offset(JsonLocation location) {
+        return location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+    }
+
+    private final class Batch {
+        private final List<TransactionDTO> records = new ArrayList<>(batchSize);
+        private final List<Long> lines = new ArrayList<>(batchSize);
+
+        private void add(TransactionDTO transactionDTO, long line) {
+            records.add(transactionDTO);
+            lines.add(line);
+        }
+
+        private void save(Report report) {
+            if (!records.isEmpty()) {
+                TransactionStreamIngestService.this.save(records, lines, report);
+                records.clear();
+                lines.clear();
+            }
+        }
+    }
+
+    /**
+     * The upload, handed out no further than the end of a line at a time, so a parser never holds more than the
+     * rest of the line it failed on and the next parser can start on the following line.
+     */
+    private static final class LineSkippingInput extends InputStream {
+        private final InputStream body;
+        private byte[] buffer = new byte[INPUT_BUFFER_BYTES];
+        private int start;
+        private int end;
+        private boolean atLineStart = true;
+
+        private LineSkippingInput(InputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            byte next = buffer[start++];
+            atLineStart = next == '\n';
+            return next & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int read = 0;
+            while (read < length && start < end) {
+                byte next = buffer[start++];
+                target[offset + read++] = next;
+                if (next == '\n') {
+                    break;
+                }
+            }
+            atLineStart = target[offset + read - 1] == '\n';
+            return read;
+        }
+
+        /**
+         * Drops what the parser had buffered of its current line and the rest of that line, however long it is,
+         * one buffer at a time.
+         */
+        private void skipLine(JsonParser parser) throws IOException {
+            ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+            parser.releaseBuffered(buffered);
+            byte[] unread = buffered.toByteArray();
+            for (int i = 0; i < unread.length; i++) {
+                if (unread[i] == '\n') {
+                    // The parser had read ahead past the line break, so the lines after it are put back
+                    byte[] joined = new byte[unread.length - i - 1 + end - start];
+                    System.arraycopy(unread, i + 1, joined, 0, unread.length - i - 1);
+                    System.arraycopy(buffer, start, joined, unread.length - i - 1, end - start);
+                    if (joined.length > buffer.length) {
+                        buffer = joined;
+                    } else {
+                        System.arraycopy(joined, 0, buffer, 0, joined.length);
+                    }
+                    start = 0;
+                    end = joined.length;
+                    return;
+                }
+            }
+            while (!atLineStart && read() >= 0) {
+                // discard
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (start == end) {
+                int read = body.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    return false;
+                }
+                start = 0;
+                end = read;
+            }
+            return true;
+        }
+    }
+
+    private final class Report {
+        private long linesRead;
+        private long saved;
+        private long rejected;
+        private boolean errorsTruncated;
+        private final List<IngestionErrorDTO> errors = new ArrayList<>();
+
+        private void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(IngestionErrorDTO.builder().line(line).message(message).build());
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
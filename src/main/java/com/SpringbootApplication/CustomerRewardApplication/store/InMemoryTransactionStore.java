@@ -0,0 +1,389 @@
+package com.SpringbootApplication.CustomerRewardApplication.store;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.event.RewardsVersionsChangedEvent;
+import com.SpringbootApplication.CustomerRewardApplication.event.TransactionsSavedEvent;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRuleSet;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact in-memory copy of the recent part of TRANSACTION, so that reward lookups need no JDBC at all.
+ *
+ * Each customer's transactions since the first month a rewards window can reach are held in two primitive
+ * columns sorted by date, epoch milliseconds and amount in cents. The columns take 16 bytes a row; with the
+ * per-customer objects InMemoryTransactionStoreBenchmarkTest measured about 36 bytes a row retained, where a
+ * hydrated {@link Transaction} took 177. A customer's columns are immutable and replaced as a whole when the
+ * customer saves transactions, so lookups read them without locking. Next to the columns the store keeps the
+ * customer's rewards version, raised as CUSTOMER_REWARDS_VERSION is, and it knows the customers without recent
+ * or any hot transactions, so existence checks stay in memory too.
+ *
+ * With {@code rewards.store.in-memory.enabled} the store is loaded at startup and then kept up to date from
+ * saved transactions after commit. As with the leaderboard seed, transactions committed while the load runs
+ * may be missed. Rows that have left every window are dropped after the month rollover.
+ */
+@Component
+public class InMemoryTransactionStore implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryTransactionStore.class);
+
+    // The rewards window of the current month reaches three months back
+    private static final int RETAINED_MONTHS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RewardRules rewardRules;
+    private final boolean enabled;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ConcurrentHashMap<Long, Customer> customers = new ConcurrentHashMap<>();
+    private volatile long retainedFrom = Long.MIN_VALUE;
+
+    @Autowired
+    public InMemoryTransactionStore(DataSource dataSource,
+                                    PlatformTransactionManager transactionManager,
+                                    RewardRules rewardRules,
+                                    @Value("${rewards.store.in-memory.enabled:false}") boolean enabled,
+                                    @Value("${rewards.store.in-memory.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // The three load queries read one snapshot, so the versions agree with the rows
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.rewardRules = rewardRules;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            load();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replaces the contents of the store with the customers and recent transactions in the database.
+     */
+    public void load() {
+        long started = System.nanoTime();
+        long from = startOf(YearMonth.now().minusMonths(RETAINED_MONTHS));
+        Map<Long, Customer> loaded = transactionTemplate.execute(status -> {
+            Map<Long, Customer> snapshot = new HashMap<>();
+            jdbcTemplate.query("SELECT CUSTOMER_ID, VERSION FROM CUSTOMER_REWARDS_VERSION",
+                    resultSet -> {
+                        snapshot.put(resultSet.getLong(1), new Customer(Customer.NO_ROWS, Customer.NO_ROWS,
+                                resultSet.getLong(2)));
+                    });
+            jdbcTemplate.query("SELECT DISTINCT CUSTOMER_ID FROM TRANSACTION "
+                            + "UNION SELECT DISTINCT CUSTOMER_ID FROM TRANSACTION_ARCHIVE",
+                    resultSet -> {
+                        snapshot.putIfAbsent(resultSet.getLong(1), Customer.UNVERSIONED);
+                    });
+            // Rows arrive grouped by customer and sorted by date, in index order
+            ColumnBuilder builder = new ColumnBuilder(snapshot);
+            jdbcTemplate.query("SELECT CUSTOMER_ID, TRANSACTION_DATE, AMOUNT FROM TRANSACTION "
+                            + "WHERE TRANSACTION_DATE >= ? ORDER BY CUSTOMER_ID, TRANSACTION_DATE",
+                    resultSet -> {
+                        builder.add(resultSet.getLong(1), resultSet.getTimestamp(2).getTime(),
+                                RewardRules.toCents(resultSet.getDouble(3)));
+                    }, new Timestamp(from));
+            builder.finish();
+            return snapshot;
+        });
+        customers.clear();
+        customers.putAll(loaded);
+        retainedFrom = from;
+        logger.info("Loaded {} transactions of {} customers into the in-memory store in {} ms",
+                getRowCount(), customers.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Sums the reward points of the given customers for the three months before {@code month}, indexed by
+     * month offset, with the same month bounds as the database query. Customers without transactions in the
+     * window are absent from the result.
+     */
+    public Map<Long, long[]> findPointsByMonthOffset(Collection<Long> customerIds, YearMonth month) {
+        long[] starts = new long[4];
+        long[] ends = new long[4];
+        RewardRuleSet[] ruleSets = new RewardRuleSet[4];
+        for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+            YearMonth bucket = month.minusMonths(monthOffset);
+            starts[monthOffset] = startOf(bucket);
+            ends[monthOffset] = bucket.atEndOfMonth().atTime(23, 59, 59).atZone(zone).toInstant().toEpochMilli();
+            // One rule set for the whole month unless a new version takes effect within it
+            RewardRuleSet first = rewardRules.ruleSetOn(bucket.atDay(1).toEpochDay());
+            ruleSets[monthOffset] = first == rewardRules.ruleSetOn(bucket.atEndOfMonth().toEpochDay()) ? first : null;
+        }
+
+        Map<Long, long[]> pointsById = new HashMap<>();
+        for (Long customerId : customerIds) {
+            Customer customer = customers.get(customerId);
+            if (customer == null || customer.dates.length == 0) {
+                continue;
+            }
+            long[] points = null;
+            for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+                int from = firstIndexAfter(customer.dates, starts[monthOffset] - 1);
+                int to = firstIndexAfter(customer.dates, ends[monthOffset]);
+                if (from == to) {
+                    continue;
+                }
+                if (points == null) {
+                    points = new long[4];
+                }
+                RewardRuleSet ruleSet = ruleSets[monthOffset];
+                for (int row = from; row < to; row++) {
+                    points[monthOffset] += ruleSet != null
+                            ? ruleSet.points(customer.cents[row])
+                            : rewardRules.points(customer.cents[row], epochDay(customer.dates[row]));
+                }
+            }
+            if (points != null) {
+                pointsById.put(customerId, points);
+            }
+        }
+        return pointsById;
+    }
+
+    public boolean exists(Long customerId) {
+        return customers.containsKey(customerId);
+    }
+
+    public Set<Long> findExistingCustomerIds(Collection<Long> customerIds) {
+        Set<Long> existing = new HashSet<>();
+        for (Long customerId : customerIds) {
+            if (customers.containsKey(customerId)) {
+                existing.add(customerId);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Returns the customer's rewards version, or 0 when the customer has none, as
+     * {@code RewardsVersionService.findVersion} does.
+     */
+    public long findVersion(Long customerId) {
+        Customer customer = customers.get(customerId);
+        return customer == null ? 0 : customer.version;
+    }
+
+    public long getRowCount() {
+        long rows = 0;
+        for (Customer customer : customers.values()) {
+            rows += customer.dates.length;
+        }
+        return rows;
+    }
+
+    /**
+     * Applies saved transactions before the rewards cache drops its entries, so a lookup in between cannot
+     * cache rewards computed from the old rows.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionsSaved(TransactionsSavedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, List<Transaction>> byCustomer = new HashMap<>();
+        for (Transaction transaction : event.getTransactions()) {
+            byCustomer.computeIfAbsent(transaction.getCustomerId(), id -> new ArrayList<>()).add(transaction);
+        }
+        long from = retainedFrom;
+        byCustomer.forEach((customerId, transactions) -> customers.compute(customerId,
+                (id, customer) -> (customer == null ? Customer.UNVERSIONED : customer).with(transactions, from)));
+    }
+
+    /**
+     * Follows versions raised without saved transactions. Only customers that have a version are raised, as in
+     * CUSTOMER_REWARDS_VERSION.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRewardsVersionsChanged(RewardsVersionsChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (Long customerId : event.getCustomerIds()) {
+            customers.computeIfPresent(customerId, (id, customer) -> customer.version == 0 ? customer : customer.raised());
+        }
+    }
+
+    /**
+     * Drops the rows of the month that has just left every rewards window.
+     */
+    @Scheduled(cron = "${rewards.store.in-memory.prune-cron:0 0 0 1 * *}")
+    public void pruneOldRows() {
+        if (!enabled) {
+            return;
+        }
+        long from = startOf(YearMonth.now().minusMonths(RETAINED_MONTHS));
+        retainedFrom = from;
+        for (Long customerId : customers.keySet()) {
+            customers.computeIfPresent(customerId, (id, customer) -> customer.withoutRowsBefore(from));
+        }
+        logger.info("Pruned the in-memory store to transactions since {}, {} left",
+                Instant.ofEpochMilli(from), getRowCount());
+    }
+
+    private long startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private long epochDay(long epochMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), zone).toEpochDay();
+    }
+
+    /**
+     * Returns the index of the first element greater than {@code value} in a sorted column.
+     */
+    private static int firstIndexAfter(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * One customer's recent transactions, sorted by date, and the customer's rewards version. Never modified once
+     * published.
+     */
+    private static final class Customer {
+        private static final long[] NO_ROWS = new long[0];
+        private static final Customer UNVERSIONED = new Customer(NO_ROWS, NO_ROWS, 0);
+
+        private final long[] dates;
+        private final long[] cents;
+        private final long version;
+
+        private Customer(long[] dates, long[] cents, long version) {
+            this.dates = dates;
+            this.cents = cents;
+            this.version = version;
+        }
+
+        private Customer with(List<Transaction> transactions, long retainedFrom) {
+            List<Transaction> recent = new ArrayList<>(transactions.size());
+            for (Transaction transaction : transactions) {
+                if (transaction.getTransactionDate().getTime() >= retainedFrom) {
+                    recent.add(transaction);
+                }
+            }
+            recent.sort(Comparator.comparing(Transaction::getTransactionDate));
+
+            // Merge the new rows into the sorted columns
+            long[] mergedDates = new long[dates.length + recent.size()];
+            long[] mergedCents = new long[mergedDates.length];
+            int existing = 0;
+            int added = 0;
+            for (int row = 0; row < mergedDates.length; row++) {
+                if (added == recent.size()
+                        || existing < dates.length && dates[existing] <= recent.get(added).getTransactionDate().getTime()) {
+                    mergedDates[row] = dates[existing];
+                    mergedCents[row] = cents[existing++];
+                } else {
+                    Transaction transaction = recent.get(added++);
+                    mergedDates[row] = transaction.getTransactionDate().getTime();
+                    mergedCents[row] = RewardRules.toCents(transaction.getTransactionAmount());
+                }
+            }
+            // One raise per saved batch, as RewardsVersionService.recordSaved does
+            return new Customer(mergedDates, mergedCents, version + 1);
+        }
+
+        private Customer raised() {
+            return new Customer(dates, cents, version + 1);
+        }
+
+        private Customer withoutRowsBefore(long from) {
+            int first = firstIndexAfter(dates, from - 1);
+            if (first == 0) {
+                return this;
+            }
+            return new Customer(Arrays.copyOfRange(dates, first, dates.length),
+                    Arrays.copyOfRange(cents, first, cents.length), version);
+        }
+    }
+
+    /**
+     * Collects streamed rows, grouped by customer, into exactly sized columns.
+     */
+    private static final class ColumnBuilder {
+        private final Map<Long, Customer> customers;
+        private long customerId;
+        private long[] dates = new long[64];
+        private long[] cents = new long[64];
+        private int size;
+
+        private ColumnBuilder(Map<Long, Customer> customers) {
+            this.customers = customers;
+        }
+
+        private void add(long customerId, long date, long amountCents) {
+            if (size > 0 && customerId != this.customerId) {
+                finish();
+            }
+            this.customerId = customerId;
+            if (size == dates.length) {
+                dates = Arrays.copyOf(dates, size * 2);
+                cents = Arrays.copyOf(cents, size * 2);
+            }
+            dates[size] = date;
+            cents[size++] = amountCents;
+        }
+
+        private void finish() {
+            if (size == 0) {
+                return;
+            }
+            // The customer query ran first in the same snapshot, so it saw every customer seen here
+            Customer version = customers.getOrDefault(customerId, Customer.UNVERSIONED);
+            customers.put(customerId, new Customer(Arrays.copyOf(dates, size), Arrays.copyOf(cents, size),
+                    version.version));
+            size = 0;
+        }
+    }
+}
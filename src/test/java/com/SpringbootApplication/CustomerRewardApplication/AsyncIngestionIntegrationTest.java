@@ -0,0 +1,80 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionStatus;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionTicketDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the write-behind ingestion endpoints.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "rewards.ingest.async.enabled=true",
+        "rewards.ingest.async.journal=target/ingest-journal-test.ndjson",
+        "rewards.ingest.async.fsync=false"
+})
+public class AsyncIngestionIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    public void setup() {
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    public void testAcceptsAndCompletesTicket() throws InterruptedException {
+        Date lastMonth = Date.from(LocalDate.now().minusMonths(1).withDayOfMonth(10)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant());
+        TransactionDTO transaction = TransactionDTO.builder()
+                .customerId(42L)
+                .transactionAmount(120.0)
+                .transactionDate(lastMonth)
+                .build();
+
+        ResponseEntity<IngestionTicketDTO> accepted = restTemplate.postForEntity("/api/rewards/transactions/async",
+                Arrays.asList(transaction, transaction), IngestionTicketDTO.class);
+        assertEquals(202, accepted.getStatusCodeValue());
+        assertNotNull(accepted.getBody());
+        URI location = accepted.getHeaders().getLocation();
+        assertNotNull(location);
+
+        IngestionTicketDTO ticket = accepted.getBody();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (ticket.getStatus() == IngestionStatus.ACCEPTED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            ticket = restTemplate.getForObject(location, IngestionTicketDTO.class);
+        }
+        assertEquals(IngestionStatus.COMPLETED, ticket.getStatus());
+        assertEquals(2, ticket.getTransactionCount());
+        assertNotNull(ticket.getFinishedAt());
+        assertEquals(2, transactionRepository.count());
+    }
+
+    @Test
+    public void testRejectsEmptyRequestAndUnknownTicket() {
+        assertEquals(400, restTemplate.postForEntity("/api/rewards/transactions/async",
+                Collections.emptyList(), String.class).getStatusCodeValue());
+        assertEquals(404, restTemplate.getForEntity("/api/rewards/transactions/async/unknown",
+                String.class).getStatusCodeValue());
+    }
+}
@@ -0,0 +1,167 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionStatus;
+import com.SpringbootApplication.CustomerRewardApplication.entity.IngestionTicket;
+import com.SpringbootApplication.CustomerRewardApplication.exception.IngestionRejectedException;
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionTicketDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.IngestionTicketRepository;
+import com.SpringbootApplication.CustomerRewardApplication.service.AsyncIngestionService;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncIngestionServiceTest {
+
+    @TempDir
+    private Path journalDir;
+
+    private final List<AsyncIngestionService> services = new ArrayList<>();
+
+    @AfterEach
+    public void cleanup() {
+        services.forEach(AsyncIngestionService::stop);
+    }
+
+    @Test
+    public void testRejectsWhenFullAndReplaysJournalAfterRestart() throws Exception {
+        // The first writer hangs on its first group, as if the process died mid-write
+        CountDownLatch hang = new CountDownLatch(1);
+        RewardsService stuckService = mock(RewardsService.class);
+        when(stuckService.saveTransactions(anyList())).thenAnswer(invocation -> {
+            hang.await();
+            throw new IllegalStateException("crashed");
+        });
+        IngestionTicketRepository ticketRepository = mock(IngestionTicketRepository.class);
+        AsyncIngestionService crashed = start(stuckService, ticketRepository, 3);
+
+        IngestionTicketDTO first = crashed.submit(transactions(1L, 2));
+        IngestionTicketDTO second = crashed.submit(transactions(2L, 1));
+        assertEquals(IngestionStatus.ACCEPTED, first.getStatus());
+        IngestionRejectedException full = assertThrows(IngestionRejectedException.class,
+                () -> crashed.submit(transactions(3L, 1)));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, full.getStatus());
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, assertThrows(IngestionRejectedException.class,
+                () -> crashed.submit(transactions(3L, 4))).getStatus());
+
+        // A new instance on the same journal writes everything that was acknowledged
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        IngestionTicketRepository restartedRepository = mock(IngestionTicketRepository.class);
+        when(restartedRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<IngestionTicket> tickets = invocation.getArgument(0);
+            tickets.forEach(ticket -> {
+                assertEquals(IngestionStatus.COMPLETED, ticket.getStatus());
+                completed.add(ticket.getTicketId());
+            });
+            return tickets;
+        });
+        RewardsService rewardsService = mock(RewardsService.class);
+        start(rewardsService, restartedRepository, 3);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (completed.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(Set.of(first.getTicketId(), second.getTicketId()), completed);
+        verify(rewardsService, atLeastOnce()).saveTransactions(anyList());
+        hang.countDown();
+    }
+
+    @Test
+    public void testFailedRequestDoesNotFailItsGroup() {
+        RewardsService rewardsService = mock(RewardsService.class);
+        when(rewardsService.saveTransactions(anyList())).thenAnswer(invocation -> {
+            List<TransactionDTO> transactions = invocation.getArgument(0);
+            if (transactions.stream().anyMatch(transaction -> transaction.getCustomerId() == 666L)) {
+                throw new IllegalArgumentException("bad customer");
+            }
+            return transactions;
+        });
+        IngestionTicketRepository ticketRepository = mock(IngestionTicketRepository.class);
+        AsyncIngestionService service = start(rewardsService, ticketRepository, 100);
+
+        IngestionTicketDTO bad = service.submit(transactions(666L, 1));
+        IngestionTicketDTO good = service.submit(transactions(7L, 2));
+
+        ArgumentCaptor<IngestionTicket> failed = ArgumentCaptor.forClass(IngestionTicket.class);
+        verify(ticketRepository, timeout(5000)).save(failed.capture());
+        assertEquals(bad.getTicketId(), failed.getValue().getTicketId());
+        assertEquals(IngestionStatus.FAILED, failed.getValue().getStatus());
+        assertEquals("bad customer", failed.getValue().getMessage());
+        verify(ticketRepository, timeout(5000)).saveAll(argThat(tickets -> {
+            List<IngestionTicket> list = new ArrayList<>();
+            tickets.forEach(list::add);
+            return list.size() == 1 && list.get(0).getTicketId().equals(good.getTicketId());
+        }));
+    }
+
+    @Test
+    public void testTransientFailureIsRetriedNotFailed() {
+        // The database keeps timing out on locks while the first instance runs
+        RewardsService lockedService = mock(RewardsService.class);
+        when(lockedService.saveTransactions(anyList())).thenThrow(new CannotAcquireLockException("lock timeout"));
+        IngestionTicketRepository lockedRepository = mock(IngestionTicketRepository.class);
+        AsyncIngestionService locked = start(lockedService, lockedRepository, 100);
+
+        IngestionTicketDTO ticket = locked.submit(transactions(8L, 2));
+        verify(lockedService, timeout(5000).atLeast(3)).saveTransactions(anyList());
+        verify(lockedRepository, never()).save(any());
+        assertEquals(IngestionStatus.ACCEPTED, locked.getTicket(ticket.getTicketId()).orElseThrow().getStatus());
+        locked.stop();
+
+        // The request stayed in the journal and is written once the database is back
+        IngestionTicketRepository ticketRepository = mock(IngestionTicketRepository.class);
+        start(mock(RewardsService.class), ticketRepository, 100);
+        verify(ticketRepository, timeout(5000)).saveAll(argThat(tickets -> {
+            List<IngestionTicket> list = new ArrayList<>();
+            tickets.forEach(list::add);
+            return list.size() == 1 && list.get(0).getTicketId().equals(ticket.getTicketId())
+                    && list.get(0).getStatus() == IngestionStatus.COMPLETED;
+        }));
+        verify(ticketRepository, never()).save(any());
+    }
+
+    private AsyncIngestionService start(RewardsService rewardsService, IngestionTicketRepository ticketRepository,
+                                        long capacity) {
+        try {
+            AsyncIngestionService service = new AsyncIngestionService(rewardsService, ticketRepository,
+                    mock(PlatformTransactionManager.class), new RewardsMetrics(new SimpleMeterRegistry()),
+                    new ObjectMapper(), capacity, 500, journalDir.resolve("journal.ndjson").toString(), true,
+                    1 << 20, Duration.ofMillis(10));
+            service.start();
+            services.add(service);
+            return service;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<TransactionDTO> transactions(long customerId, int count) {
+        return new ArrayList<>(Collections.nCopies(count, TransactionDTO.builder()
+                .customerId(customerId)
+                .transactionAmount(120.0)
+                .transactionDate(new Date())
+                .build()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.SpringbootApplication.CustomerRewardApplication.store.InMemoryTransactionStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeded benchmark comparing the in-memory transaction store with the JPA path: retained heap per row, and the
+ * latency of a single customer's monthly points lookup.
+ *
+ * Disabled by default. Run with:
+ * {@code mvn test -Dtest=InMemoryTransactionStoreBenchmarkTest -Drewards.benchmark=true [-Drewards.benchmark.rows=1000000]}
+ */
+@EnabledIfSystemProperty(named = "rewards.benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "rewards.cache.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.SpringbootApplication=INFO"
+})
+public class InMemoryTransactionStoreBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryTransactionStoreBenchmarkTest.class);
+
+    private static final int CUSTOMERS = 10_000;
+    private static final int WARMUP_LOOKUPS = 2_000;
+    private static final int MEASURED_LOOKUPS = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RewardRules rewardRules;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+    }
+
+    @Test
+    public void testMemoryAndLookupLatencyAgainstJpa() {
+        long rows = Long.getLong("rewards.benchmark.rows", 500_000L);
+        // Rows spread over all customers and the three months the store keeps
+        jdbcTemplate.update("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                + "SELECT 1000000000 + X, MOD(X, " + CUSTOMERS + "), "
+                + "DATEADD('MINUTE', -MOD(X * 7919, 129600), DATEADD('DAY', -1, CURRENT_DATE)), MOD(X * 31, 25000) / 100.0 "
+                + "FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbcTemplate.execute("ANALYZE TABLE TRANSACTION");
+
+        long baseline = usedHeapAfterGc();
+        List<Transaction> entities = transactionRepository.findAll();
+        double entityBytesPerRow = (usedHeapAfterGc() - baseline) / (double) entities.size();
+        entities = null;
+
+        baseline = usedHeapAfterGc();
+        InMemoryTransactionStore store = new InMemoryTransactionStore(dataSource, transactionManager, rewardRules, true, 1000);
+        store.load();
+        double storeBytesPerRow = (usedHeapAfterGc() - baseline) / (double) store.getRowCount();
+        assertEquals(rows, store.getRowCount());
+
+        YearMonth month = YearMonth.now();
+        Date[] bounds = bounds(month);
+        double[] jpa = measureMicros(customerId -> transactionRepository.sumRewardPointsByMonthForCustomers(
+                List.of(customerId), bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]));
+        double[] inMemory = measureMicros(customerId -> store.findPointsByMonthOffset(List.of(customerId), month));
+
+        logger.info(String.format("rows=%,d", rows));
+        logger.info(String.format("jpa       bytes/row=%.1f p50=%.1f us p99=%.1f us",
+                entityBytesPerRow, jpa[0], jpa[1]));
+        logger.info(String.format("in-memory bytes/row=%.1f p50=%.1f us p99=%.1f us",
+                storeBytesPerRow, inMemory[0], inMemory[1]));
+
+        assertTrue(storeBytesPerRow < entityBytesPerRow, "store retains " + storeBytesPerRow + " bytes per row");
+        assertTrue(inMemory[1] < jpa[1], "store p99 " + inMemory[1] + " us");
+    }
+
+    private double[] measureMicros(LongConsumer lookup) {
+        Random random = new Random(42);
+        for (int i = 0; i < WARMUP_LOOKUPS; i++) {
+            lookup.accept(random.nextInt(CUSTOMERS));
+        }
+        long[] latencies = new long[MEASURED_LOOKUPS];
+        for (int i = 0; i < MEASURED_LOOKUPS; i++) {
+            long customerId = random.nextInt(CUSTOMERS);
+            long start = System.nanoTime();
+            lookup.accept(customerId);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return new double[]{
+                latencies[MEASURED_LOOKUPS / 2] / 1_000.0,
+                latencies[(int) Math.ceil(MEASURED_LOOKUPS * 0.99) - 1] / 1_000.0
+        };
+    }
+
+    private static Date[] bounds(YearMonth month) {
+        Date[] bounds = new Date[6];
+        for (int offset = 1; offset <= 3; offset++) {
+            YearMonth previous = month.minusMonths(offset);
+            bounds[offset * 2 - 2] = Date.from(previous.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            bounds[offset * 2 - 1] = Date.from(previous.atEndOfMonth().atTime(23, 59, 59)
+                    .atZone(ZoneId.systemDefault()).toInstant());
+        }
+        return bounds;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,143 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.CustomerMonthlyRewardRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.MonthlyRewardPoints;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import com.SpringbootApplication.CustomerRewardApplication.store.InMemoryTransactionStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.SpringbootApplication.CustomerRewardApplication.TestTransactions.transaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for serving reward lookups from the in-memory transaction store.
+ */
+@SpringBootTest(properties = {
+        "rewards.store.in-memory.enabled=true",
+        "rewards.cache.enabled=false"
+})
+public class InMemoryTransactionStoreTest {
+
+    private static final int CUSTOMERS = 200;
+
+    @Autowired
+    private InMemoryTransactionStore transactionStore;
+
+    @Autowired
+    private RewardsService rewardsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveRepository archiveRepository;
+
+    @Autowired
+    private CustomerMonthlyRewardRepository ledgerRepository;
+
+    @AfterEach
+    public void cleanup() {
+        transactionRepository.deleteAll();
+        archiveRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        transactionStore.load();
+    }
+
+    @Test
+    public void testPointsMatchDatabase() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime date = now.minusMinutes(random.nextInt(60 * 24 * 180));
+            rows.add(new Object[]{2_000_000_000L + i, 1L + random.nextInt(CUSTOMERS), Timestamp.valueOf(date),
+                    random.nextInt(30_000) / 100.0});
+        }
+        // Both sides of each month boundary, including the last second the database window excludes
+        for (int monthsAgo = 1; monthsAgo <= 4; monthsAgo++) {
+            LocalDate firstDay = LocalDate.now().minusMonths(monthsAgo).withDayOfMonth(1);
+            rows.add(new Object[]{2_100_000_000L + monthsAgo * 3, 1L, Timestamp.valueOf(firstDay.atStartOfDay()), 120.0});
+            rows.add(new Object[]{2_100_000_001L + monthsAgo * 3, 1L, Timestamp.valueOf(firstDay.minusDays(1).atTime(23, 59, 59)), 130.0});
+            rows.add(new Object[]{2_100_000_002L + monthsAgo * 3, 1L, Timestamp.valueOf(firstDay.minusDays(1).atTime(23, 59, 59, 500_000_000)), 140.0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) VALUES (?, ?, ?, ?)", rows);
+        transactionStore.load();
+
+        List<Long> customerIds = LongStream.rangeClosed(1, CUSTOMERS + 5).boxed().collect(Collectors.toList());
+        for (YearMonth month : new YearMonth[]{YearMonth.now(), YearMonth.now().plusMonths(1)}) {
+            Map<Long, long[]> fromStore = transactionStore.findPointsByMonthOffset(customerIds, month);
+            Map<Long, long[]> fromDatabase = databasePoints(customerIds, month);
+            assertEquals(fromDatabase.keySet(), fromStore.keySet(), month.toString());
+            fromDatabase.forEach((customerId, points) ->
+                    assertArrayEquals(points, fromStore.get(customerId), "customer " + customerId + " in " + month));
+        }
+    }
+
+    @Test
+    public void testKeepsUpWithSavedTransactions() {
+        // Only in the archive: known, with nothing in the window
+        jdbcTemplate.update("INSERT INTO TRANSACTION_ARCHIVE (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                + "VALUES (1, 71, ?, 120.0)", Timestamp.valueOf(LocalDate.now().minusYears(1).atStartOfDay()));
+        transactionStore.load();
+        assertEquals(0, rewardsService.getRewardsByCustomerId(71L).getTotalRewards());
+        assertNull(rewardsService.getRewardsByCustomerId(71L).getVersion());
+
+        rewardsService.saveTransactions(Collections.singletonList(transaction(70L, 1, 120.0)));
+        RewardsDTO first = rewardsService.getRewardsByCustomerId(70L);
+        assertEquals(90, first.getTotalRewards());
+
+        rewardsService.saveTransactions(List.of(transaction(70L, 1, 75.0), transaction(71L, 1, 200.0)));
+        RewardsDTO second = rewardsService.getRewardsByCustomerId(70L);
+        assertEquals(115, second.getTotalRewards());
+        assertNotEquals(first.getVersion(), second.getVersion());
+        assertEquals(250, rewardsService.getRewardsByCustomerId(71L).getTotalRewards());
+
+        // A reload from the database arrives at the same state
+        transactionStore.load();
+        assertEquals(second.getVersion(), rewardsService.getRewardsByCustomerId(70L).getVersion());
+        assertEquals(250, rewardsService.getRewardsByCustomerId(71L).getTotalRewards());
+    }
+
+    private Map<Long, long[]> databasePoints(List<Long> customerIds, YearMonth month) {
+        Map<Long, long[]> pointsById = new HashMap<>();
+        for (MonthlyRewardPoints bucket : transactionRepository.sumRewardPointsByMonthForCustomers(customerIds,
+                start(month, 1), end(month, 1), start(month, 2), end(month, 2), start(month, 3), end(month, 3))) {
+            pointsById.computeIfAbsent(bucket.getCustomerId(), id -> new long[4])[bucket.getMonthOffset()] = bucket.getPoints();
+        }
+        return pointsById;
+    }
+
+    private static Date start(YearMonth month, int monthOffset) {
+        return Date.from(month.minusMonths(monthOffset).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Date end(YearMonth month, int monthOffset) {
+        return Date.from(month.minusMonths(monthOffset).atEndOfMonth().atTime(23, 59, 59)
+                .atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
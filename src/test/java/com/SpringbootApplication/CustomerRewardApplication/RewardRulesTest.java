@@ -0,0 +1,107 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRuleSet;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRulesProperties;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RewardRulesTest {
+
+    private static final LocalDate NEW_RULES = LocalDate.of(2025, 1, 1);
+
+    // Standard rule until 2025, then 5 points per dollar over $100
+    private final RewardRules versionedRules = new RewardRules(Arrays.asList(
+            new RewardRuleSet(NEW_RULES, new long[]{10_000}, new long[]{5}),
+            new RewardRuleSet(LocalDate.EPOCH, new long[]{5_000, 10_000}, new long[]{1, 2})));
+
+    @Test
+    public void testStandardRule() {
+        RewardRules rules = RewardRules.standard();
+        long today = LocalDate.now().toEpochDay();
+
+        assertEquals(0, rules.points(RewardRules.toCents(50.00), today));
+        assertEquals(25, rules.points(RewardRules.toCents(75.00), today));
+        assertEquals(50, rules.points(RewardRules.toCents(100.00), today));
+        assertEquals(90, rules.points(RewardRules.toCents(120.30), today));
+        assertEquals(91, rules.points(RewardRules.toCents(120.99), today));
+    }
+
+    @Test
+    public void testScoresExactCents() {
+        // (100.60 - 100) * 5 is 2.99999... in double arithmetic
+        assertEquals(3, versionedRules.points(100.60, Timestamp.valueOf(NEW_RULES.atTime(9, 0))));
+        assertEquals(0, versionedRules.points(100.19, Timestamp.valueOf(NEW_RULES.atTime(9, 0))));
+        assertEquals(1, versionedRules.points(100.20, Timestamp.valueOf(NEW_RULES.atTime(9, 0))));
+    }
+
+    @Test
+    public void testVersionFollowsTransactionDate() {
+        long amount = RewardRules.toCents(120.00);
+
+        assertEquals(90, versionedRules.points(amount, NEW_RULES.minusDays(1).toEpochDay()));
+        assertEquals(100, versionedRules.points(amount, NEW_RULES.toEpochDay()));
+        assertEquals(100, versionedRules.points(amount, NEW_RULES.plusYears(1).toEpochDay()));
+        // The earliest version also covers older transactions
+        assertEquals(90, versionedRules.points(amount, LocalDate.of(1960, 1, 1).toEpochDay()));
+    }
+
+    @Test
+    public void testSqlMatchesJava() throws Exception {
+        String sql = "SELECT " + versionedRules.toSql("t.AMOUNT", "t.TRANSACTION_DATE")
+                + " FROM (SELECT CAST(? AS DOUBLE PRECISION) AS AMOUNT, CAST(? AS TIMESTAMP) AS TRANSACTION_DATE) t";
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:reward-rules");
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (LocalDate day : Arrays.asList(NEW_RULES.minusDays(1), NEW_RULES)) {
+                Timestamp date = Timestamp.valueOf(day.atTime(23, 59, 59));
+                for (long cents = 0; cents <= 30_000; cents += 7) {
+                    statement.setDouble(1, cents / 100.0);
+                    statement.setTimestamp(2, date);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                        assertEquals(versionedRules.points(cents / 100.0, date), resultSet.getLong(1),
+                                "amount " + cents / 100.0 + " on " + day);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPropertiesCompileToRules() {
+        RewardRulesProperties.Tier tier = new RewardRulesProperties.Tier();
+        tier.setOver(new BigDecimal("100"));
+        tier.setPointsPerDollar(5);
+        RewardRulesProperties.Version version = new RewardRulesProperties.Version();
+        version.setEffectiveFrom(NEW_RULES);
+        version.setTiers(Collections.singletonList(tier));
+        RewardRulesProperties properties = new RewardRulesProperties();
+        properties.setVersions(Collections.singletonList(version));
+
+        assertEquals(100, properties.toRules().points(RewardRules.toCents(120.00), NEW_RULES.toEpochDay()));
+        assertEquals(90, new RewardRulesProperties().toRules().points(RewardRules.toCents(120.00), NEW_RULES.toEpochDay()));
+
+        tier.setOver(new BigDecimal("100.005"));
+        assertThrows(IllegalArgumentException.class, properties::toRules);
+    }
+
+    @Test
+    public void testRejectsUnorderedTiers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RewardRuleSet(NEW_RULES, new long[]{10_000, 5_000}, new long[]{2, 1}));
+        assertThrows(IllegalArgumentException.class, () -> new RewardRules(Arrays.asList(
+                new RewardRuleSet(NEW_RULES, new long[]{5_000}, new long[]{1}),
+                new RewardRuleSet(NEW_RULES, new long[]{5_000}, new long[]{2}))));
+    }
+}
@@ -0,0 +1,93 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.cache.RewardsCache;
+import com.SpringbootApplication.CustomerRewardApplication.cache.RewardsCacheWarmer;
+import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.CustomerMonthlyRewardRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.SpringbootApplication.CustomerRewardApplication.TestTransactions.monthName;
+import static com.SpringbootApplication.CustomerRewardApplication.TestTransactions.transaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for caching the next month's rewards ahead of the month rollover.
+ */
+@SpringBootTest
+public class RewardsCacheWarmerTest {
+
+    @Autowired
+    private RewardsCacheWarmer rewardsCacheWarmer;
+
+    @Autowired
+    private RewardsService rewardsService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CustomerMonthlyRewardRepository ledgerRepository;
+
+    @Autowired
+    private RewardsCache rewardsCache;
+
+    @BeforeEach
+    public void setup() {
+        cleanup();
+        rewardsService.saveTransactions(Arrays.asList(
+                transaction(60L, 1, 120.0),
+                transaction(61L, 0, 120.0),
+                // Outside the next window
+                transaction(62L, 3, 120.0)));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        rewardsCache.invalidateAll();
+    }
+
+    @Test
+    public void testCachesNextMonthWindow() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+        // Looked up this month, so warmed up although its next window only has last month's transaction
+        rewardsService.getRewardsByCustomerId(62L);
+
+        assertEquals(3, rewardsCacheWarmer.warmUp(next));
+
+        RewardsDTO active = rewardsCache.getIfPresent(61L, next);
+        assertNotNull(active);
+        assertEquals(90L, active.getMonthlyRewards().get(monthName(YearMonth.now())));
+        assertEquals(90L, active.getTotalRewards());
+        assertEquals(90L, rewardsCache.getIfPresent(60L, next).getTotalRewards());
+        assertEquals(0L, rewardsCache.getIfPresent(62L, next).getTotalRewards());
+        assertTrue(active.getVersion().startsWith("\"" + next + "-"));
+        // The current month's entries are left alone
+        assertNull(rewardsCache.getIfPresent(61L, YearMonth.now()));
+        assertNotNull(rewardsCache.getIfPresent(62L, YearMonth.now()));
+    }
+
+    @Test
+    public void testWriteInvalidatesWarmedUpRewards() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+        rewardsCacheWarmer.warmUp(next);
+
+        rewardsService.saveTransactions(Collections.singletonList(transaction(61L, 0, 75.0)));
+
+        assertNull(rewardsCache.getIfPresent(61L, next));
+        assertNotNull(rewardsCache.getIfPresent(60L, next));
+        rewardsService.precomputeRewards(Collections.singletonList(61L), next);
+        assertEquals(115L, rewardsCache.getIfPresent(61L, next).getTotalRewards());
+    }
+}
@@ -0,0 +1,144 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent HTTP load against the single and batch rewards endpoints, to compare platform-thread and
+ * virtual-thread execution under the same client load.
+ *
+ * Disabled by default. Run once per mode and compare the printed throughput and p99:
+ * {@code mvn test -Dtest=RewardsConcurrencyLoadTest -Drewards.loadtest=true}
+ * {@code mvn test -Pjava21 -Dtest=RewardsConcurrencyLoadTest -Drewards.loadtest=true -Dspring.profiles.active=virtual-threads}
+ * Tune with {@code -Drewards.loadtest.clients=200 -Drewards.loadtest.requests=20000}.
+ */
+@EnabledIfSystemProperty(named = "rewards.loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "rewards.cache.enabled=false",
+        // Small chunks so that batch lookups fan out over several queries
+        "rewards.batch.chunk-size=10",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.SpringbootApplication=INFO"
+})
+public class RewardsConcurrencyLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardsConcurrencyLoadTest.class);
+
+    private static final int CUSTOMERS = 5_000;
+    private static final int ROWS = 200_000;
+    private static final int BATCH_SIZE = 50;
+    // Every tenth request is a batch lookup, the rest are single-customer lookups
+    private static final int BATCH_EVERY = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @BeforeEach
+    public void seed() {
+        jdbcTemplate.update("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                + "SELECT 1000000000 + X, MOD(X, " + CUSTOMERS + "), "
+                + "DATEADD('MINUTE', -MOD(X * 7919, 131400), CURRENT_TIMESTAMP), MOD(X * 31, 25000) / 100.0 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.execute("ANALYZE TABLE TRANSACTION");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        int clients = Integer.getInteger("rewards.loadtest.clients", 100);
+        int requests = Integer.getInteger("rewards.loadtest.requests", 10_000);
+        HttpClient client = HttpClient.newBuilder().build();
+
+        // Warm up the JIT and connection handling before measuring
+        run(client, clients, requests / 10, new Random(7));
+
+        long start = System.nanoTime();
+        long[] latencies = run(client, clients, requests, new Random(42));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        logger.info(String.format("profiles=%s clients=%d requests=%,d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms",
+                Arrays.toString(environment.getActiveProfiles()), clients, requests, requests / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99)));
+    }
+
+    private long[] run(HttpClient client, int clients, int requests, Random random) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Long>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                HttpRequest request = i % BATCH_EVERY == 0 ? batchRequest(random) : singleRequest(random);
+                futures.add(pool.submit(() -> {
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    assertEquals(200, response.statusCode(), request.uri().toString());
+                    return System.nanoTime() - start;
+                }));
+            }
+            long[] latencies = new long[requests];
+            for (int i = 0; i < requests; i++) {
+                latencies[i] = futures.get(i).get();
+            }
+            return latencies;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private HttpRequest singleRequest(Random random) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rewards/" + random.nextInt(CUSTOMERS)))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest batchRequest(Random random) {
+        long first = random.nextInt(CUSTOMERS - BATCH_SIZE);
+        String body = LongStream.range(first, first + BATCH_SIZE)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rewards/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(sorted.length * p) - 1] / 1_000_000.0;
+    }
+}
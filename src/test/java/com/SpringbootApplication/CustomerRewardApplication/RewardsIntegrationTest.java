@@ -1,23 +1,82 @@
 package com.SpringbootApplication.CustomerRewardApplication;
 
+import com.SpringbootApplication.CustomerRewardApplication.cache.RewardsCache;
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerMonthlyReward;
+import com.SpringbootApplication.CustomerRewardApplication.entity.CustomerMonthlyRewardId;
 import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.entity.TransactionArchive;
+import com.SpringbootApplication.CustomerRewardApplication.leaderboard.RewardsLeaderboard;
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import com.SpringbootApplication.CustomerRewardApplication.payload.BatchRewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionReportDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardEntryDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LedgerReconcileReportDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.CustomerMonthlyRewardRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
 import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardLedgerService;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsExportService;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsServiceImpl;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsVersionService;
+import com.SpringbootApplication.CustomerRewardApplication.service.TransactionStreamIngestService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 
+import static com.SpringbootApplication.CustomerRewardApplication.TestTransactions.monthName;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Integration test for reward endpoint.
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
 public class RewardsIntegrationTest {
 
     @Autowired
@@ -26,12 +85,56 @@ public class RewardsIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private RewardsServiceImpl rewardsService;
+
+    @Autowired
+    private CustomerMonthlyRewardRepository ledgerRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionArchiveRepository archiveRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RewardsMetrics rewardsMetrics;
+
+    @Autowired
+    private RewardRules rewardRules;
+
+    @Autowired
+    private RewardsCache rewardsCache;
+
+    @Autowired
+    private RewardsVersionService rewardsVersionService;
+
+    @Autowired
+    private RewardsExportService rewardsExportService;
+
+    @Autowired
+    private RewardsLeaderboard rewardsLeaderboard;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @BeforeEach
     public void setup() {
         transactionRepository.deleteAll();
-        Timestamp now = new Timestamp(System.currentTimeMillis());
-        transactionRepository.save(new Transaction(null, 1L, now, 120.0));
-        transactionRepository.save(new Transaction(null, 1L, now, 80.0));
+        archiveRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        rewardsCache.invalidateAll();
+        // Rewards cover the last three full months, so seed the data in the previous month
+        Timestamp lastMonth = timestamp(LocalDate.now().minusMonths(1).withDayOfMonth(15).atTime(12, 0));
+        transactionRepository.save(new Transaction(null, 1L, lastMonth, 120.0));
+        transactionRepository.save(new Transaction(null, 1L, lastMonth, 80.0));
+        rewardsLeaderboard.rebuild();
     }
 
     @Test
@@ -41,4 +144,458 @@ public class RewardsIntegrationTest {
         assertNotNull(response.getBody());
         assertTrue(response.getBody().getTotalRewards() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetRewardsAPI_conditionalGet() {
+        // Versions are raised by saves through the service, not by rows written straight to the repository
+        rewardsService.saveTransaction(TransactionDTO.builder()
+                .customerId(1L)
+                .transactionAmount(120.0)
+                .transactionDate(Date.from(LocalDate.now().minusMonths(1).withDayOfMonth(20)
+                        .atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                .build());
+        ResponseEntity<RewardsDTO> first = restTemplate.getForEntity("/api/rewards/1", RewardsDTO.class);
+        List<String> etags = first.getHeaders().get(HttpHeaders.ETAG);
+        assertNotNull(etags);
+        assertEquals(1, etags.size());
+        assertFalse(etags.get(0).startsWith("W/"));
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(etags.get(0));
+        ResponseEntity<String> notModified = restTemplate.exchange("/api/rewards/1", HttpMethod.GET,
+                new HttpEntity<>(conditional), String.class);
+        assertEquals(304, notModified.getStatusCodeValue());
+        assertNull(notModified.getBody());
+        assertEquals(etags.get(0), notModified.getHeaders().getETag());
+
+        // A new transaction for the customer changes the version
+        rewardsService.saveTransaction(TransactionDTO.builder()
+                .customerId(1L)
+                .transactionAmount(60.0)
+                .transactionDate(new Date())
+                .build());
+        ResponseEntity<RewardsDTO> changed = restTemplate.exchange("/api/rewards/1", HttpMethod.GET,
+                new HttpEntity<>(conditional), RewardsDTO.class);
+        assertEquals(200, changed.getStatusCodeValue());
+        assertNotEquals(etags.get(0), changed.getHeaders().getETag());
+
+        // So does a ledger repair, although no transaction was saved through the service
+        transactionRepository.save(new Transaction(null, 1L, new Timestamp(System.currentTimeMillis()), 60.0));
+        conditional.setIfNoneMatch(changed.getHeaders().getETag());
+        assertEquals(304, restTemplate.exchange("/api/rewards/1", HttpMethod.GET,
+                new HttpEntity<>(conditional), String.class).getStatusCodeValue());
+        assertTrue(rewardLedgerService.reconcile(true).getDriftedRows() > 0);
+        ResponseEntity<RewardsDTO> repaired = restTemplate.exchange("/api/rewards/1", HttpMethod.GET,
+                new HttpEntity<>(conditional), RewardsDTO.class);
+        assertEquals(200, repaired.getStatusCodeValue());
+        assertNotEquals(changed.getHeaders().getETag(), repaired.getHeaders().getETag());
+    }
+
+    @Test
+    public void testExportAPI_csv() {
+        // Customer 2 only has transactions outside the window, customer 0 only archived ones
+        transactionRepository.save(new Transaction(null, 2L,
+                timestamp(LocalDate.now().minusMonths(5).withDayOfMonth(3).atTime(9, 0)), 500.0));
+        archiveRepository.save(new TransactionArchive(1L, 0L,
+                timestamp(LocalDate.now().minusYears(1).atTime(9, 0)), 500.0));
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/rewards/export", String.class);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertTrue(TransactionStreamIngestService.TEXT_CSV.isCompatibleWith(response.getHeaders().getContentType()));
+        String[] lines = response.getBody().split("\n");
+        String lastMonth = monthName(YearMonth.now().minusMonths(1));
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("customerId," + lastMonth + ","), lines[0]);
+        assertEquals("0,0,0,0,0", lines[1]);
+        assertEquals("1,120,0,0,120", lines[2]);
+        assertEquals("2,0,0,0,0", lines[3]);
+    }
+
+    @Test
+    public void testExport_pagesReleaseTheConnectionBeforeWriting() throws IOException {
+        // Hot and archived customers interleaved, with more rows than a page for customer 4
+        Timestamp lastMonth = timestamp(LocalDate.now().minusMonths(1).withDayOfMonth(10).atTime(12, 0));
+        Timestamp lastYear = timestamp(LocalDate.now().minusYears(1).atTime(12, 0));
+        for (int i = 0; i < 5; i++) {
+            transactionRepository.save(new Transaction(null, 4L, lastMonth, 120.0));
+        }
+        transactionRepository.save(new Transaction(null, 6L, lastMonth, 75.0));
+        transactionRepository.save(new Transaction(null, 7L, lastMonth, 75.0));
+        for (long customerId : new long[]{3L, 4L, 5L, 8L, 9L}) {
+            archiveRepository.save(new TransactionArchive(100 + customerId, customerId, lastYear, 200.0));
+        }
+        ByteArrayOutputStream unpaged = new ByteArrayOutputStream();
+        long customers = rewardsExportService.export(unpaged, false, YearMonth.now());
+
+        // Every write to the client happens with no transaction open on the exporting thread
+        RewardsExportService pagedService = new RewardsExportService(dataSource, transactionManager, objectMapper,
+                rewardRules, 1000, 2);
+        List<Integer> writes = new ArrayList<>();
+        ByteArrayOutputStream paged = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+                writes.add(length);
+                super.write(bytes, offset, length);
+            }
+        };
+
+        assertEquals(customers, pagedService.export(paged, false, YearMonth.now()));
+        assertEquals(unpaged.toString(StandardCharsets.UTF_8), paged.toString(StandardCharsets.UTF_8));
+        // Customer 1 from the setup, 4, 6 and 7 from TRANSACTION, 3, 5, 8 and 9 from the archive only
+        assertEquals(8, customers);
+        assertTrue(writes.size() > 3, writes.toString());
+    }
+
+    @Test
+    public void testExportAPI_gzipNdjson() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + "/api/rewards/export"))
+                .header(HttpHeaders.ACCEPT, "application/x-ndjson")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        List<RewardsDTO> statements = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(response.body()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                statements.add(objectMapper.readValue(line, RewardsDTO.class));
+            }
+        }
+        assertEquals(1, statements.size());
+        assertEquals(1L, statements.get(0).getCustomerId());
+        assertEquals(120, statements.get(0).getTotalRewards());
+        assertEquals(3, statements.get(0).getMonthlyRewards().size());
+    }
+
+    @Test
+    public void testPrometheusEndpointExposesRewardMetrics() {
+        restTemplate.getForEntity("/api/rewards/1", RewardsDTO.class);
+        restTemplate.getForEntity("/api/rewards/999", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertEquals(200, response.getStatusCodeValue(), response.getBody());
+        String metrics = response.getBody();
+        assertNotNull(metrics);
+        assertTrue(metrics.contains("rewards_lookup_seconds_bucket{"));
+        assertTrue(metrics.contains("rewards_lookup_transactions_count{"));
+        assertTrue(metrics.contains("rewards_customer_not_found_total{"));
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("cache_gets_total{cache=\"rewards\""));
+    }
+
+    @Test
+    public void testBatchRewardsAPI() {
+        ResponseEntity<BatchRewardsDTO> response = restTemplate.postForEntity("/api/rewards/batch",
+                Arrays.asList(1L, 999L), BatchRewardsDTO.class);
+        assertEquals(200, response.getStatusCodeValue());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getRewards().size());
+        assertEquals(120, response.getBody().getRewards().get(0).getTotalRewards());
+        assertEquals(Arrays.asList(999L), response.getBody().getNotFoundCustomerIds());
+    }
+
+    @Test
+    public void testSaveTransactionsAPI_batchesLargeUpload() {
+        Date lastMonth = Date.from(LocalDate.now().minusMonths(1).withDayOfMonth(10).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        List<TransactionDTO> upload = new ArrayList<>();
+        for (int i = 0; i < 1234; i++) {
+            upload.add(TransactionDTO.builder()
+                    .customerId(30L + i % 3)
+                    .transactionAmount(75.0)
+                    .transactionDate(lastMonth)
+                    .build());
+        }
+
+        ResponseEntity<TransactionDTO[]> response = restTemplate.postForEntity("/api/rewards/transactions",
+                upload, TransactionDTO[].class);
+        assertEquals(200, response.getStatusCodeValue());
+        assertNotNull(response.getBody());
+        assertEquals(1234, response.getBody().length);
+        assertEquals(1234, Arrays.stream(response.getBody()).map(TransactionDTO::getTransactionId).distinct().count());
+        assertEquals(1236, transactionRepository.count());
+        assertEquals(412 * 25, rewardsService.getRewardsByCustomerId(30L).getTotalRewards());
+
+        // The cached result is dropped once more transactions for the customer are committed
+        restTemplate.postForEntity("/api/rewards/transactions", upload.subList(0, 1), TransactionDTO[].class);
+        assertEquals(413 * 25, rewardsService.getRewardsByCustomerId(30L).getTotalRewards());
+    }
+
+    @Test
+    public void testSaveTransactionsAPI_concurrentFirstWritesToLedgerRow() throws Exception {
+        int writers = 8;
+        Date lastMonth = Date.from(LocalDate.now().minusMonths(1).withDayOfMonth(10).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            // Each round is the first write of a customer and month, so every writer races to create its ledger row
+            for (long customerId = 60; customerId < 70; customerId++) {
+                List<TransactionDTO> upload = Collections.singletonList(TransactionDTO.builder()
+                        .customerId(customerId)
+                        .transactionAmount(120.0)
+                        .transactionDate(lastMonth)
+                        .build());
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> statuses = new ArrayList<>();
+                for (int i = 0; i < writers; i++) {
+                    statuses.add(pool.submit(() -> {
+                        start.await();
+                        return restTemplate.postForEntity("/api/rewards/transactions", upload, String.class).getStatusCodeValue();
+                    }));
+                }
+                start.countDown();
+                for (Future<Integer> status : statuses) {
+                    assertEquals(200, status.get(), "customer " + customerId);
+                }
+
+                CustomerMonthlyReward row = ledgerRepository.findById(
+                        new CustomerMonthlyRewardId(customerId, YearMonth.now().minusMonths(1).toString())).orElseThrow();
+                assertEquals(writers * 90, row.getPoints());
+                assertEquals(writers, row.getTransactionCount());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLeaderboardAPI() {
+        Date today = new Date();
+        rewardsService.saveTransactions(Arrays.asList(
+                TransactionDTO.builder().customerId(30L).transactionAmount(400.0).transactionDate(today).build(),
+                TransactionDTO.builder().customerId(31L).transactionAmount(1000.0).transactionDate(today).build(),
+                TransactionDTO.builder().customerId(32L).transactionAmount(500.0).transactionDate(today).build()));
+        rewardsService.saveTransaction(
+                TransactionDTO.builder().customerId(32L).transactionAmount(500.0).transactionDate(today).build());
+
+        ResponseEntity<LeaderboardDTO> response = restTemplate.getForEntity("/api/rewards/leaderboard?limit=3", LeaderboardDTO.class);
+        assertEquals(200, response.getStatusCodeValue());
+        List<LeaderboardEntryDTO> entries = response.getBody().getEntries();
+        assertEquals(Arrays.asList(31L, 32L, 30L), entries.stream().map(LeaderboardEntryDTO::getCustomerId).toList());
+        assertEquals(Arrays.asList(1850L, 1700L, 650L), entries.stream().map(LeaderboardEntryDTO::getPoints).toList());
+        assertEquals(Arrays.asList(1, 2, 3), entries.stream().map(LeaderboardEntryDTO::getRank).toList());
+
+        // Seeding from TRANSACTION gives the same ranking as the incremental updates
+        rewardsLeaderboard.rebuild();
+        assertEquals(Arrays.asList(31L, 32L, 30L), rewardsLeaderboard.top(3).getEntries().stream()
+                .map(LeaderboardEntryDTO::getCustomerId).toList());
+        assertEquals(1700L, rewardsLeaderboard.top(3).getEntries().get(1).getPoints());
+
+        assertEquals(400, restTemplate.getForEntity("/api/rewards/leaderboard?limit=0", String.class).getStatusCodeValue());
+    }
+
+    @Test
+    public void testStreamTransactionsAPI_ndjson() {
+        String lastMonth = LocalDate.now().minusMonths(1).withDayOfMonth(3) + "T10:00:00.000+00:00";
+        String body = "{\"customerId\":50,\"transactionAmount\":120.0,\"transactionDate\":\"" + lastMonth + "\"}\n"
+                + "\n"
+                + "{\"customerId\":50,\"transactionAmount\":-5,\"transactionDate\":\"" + lastMonth + "\"}\n"
+                + "{not json}\n"
+                + "{\"customerId\":50,\"transactionAmount\":75.0,\"transactionDate\":\"" + lastMonth + "\"}\n";
+
+        IngestionReportDTO report = postStream(body, "application/x-ndjson");
+        assertEquals(5, report.getLinesRead());
+        assertEquals(2, report.getSaved());
+        assertEquals(2, report.getRejected());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertTrue(report.getErrors().get(0).getMessage().contains("greater than 0"));
+        assertEquals(4, report.getErrors().get(1).getLine());
+        assertEquals(90 + 25, rewardsService.getRewardsByCustomerId(50L).getTotalRewards());
+    }
+
+    @Test
+    public void testStreamTransactionsAPI_csv() {
+        String lastMonth = LocalDate.now().minusMonths(1).withDayOfMonth(3) + "T10:00:00.000+00:00";
+        StringBuilder body = new StringBuilder("customerId,transactionAmount,transactionDate\n");
+        for (int i = 0; i < 1200; i++) {
+            body.append("51,60.0,").append(lastMonth).append('\n');
+        }
+        body.append(",60.0,").append(lastMonth).append('\n');
+
+        IngestionReportDTO report = postStream(body.toString(), "text/csv");
+        assertEquals(1202, report.getLinesRead());
+        assertEquals(1200, report.getSaved());
+        assertEquals(1, report.getRejected());
+        assertEquals(1202, report.getErrors().get(0).getLine());
+        assertEquals(1200 * 10, rewardsService.getRewardsByCustomerId(51L).getTotalRewards());
+    }
+
+    @Test
+    public void testStreamTransactionsAPI_csvQuotedHeaderWithByteOrderMark() {
+        String lastMonth = LocalDate.now().minusMonths(1).withDayOfMonth(3) + "T10:00:00.000+00:00";
+        String body = "\uFEFF\"customerId\", \"transactionAmount\",\"transactionDate\"\n"
+                + "52,\"120.0\"," + lastMonth + "\n"
+                + "52,60.0," + lastMonth + "\n";
+
+        IngestionReportDTO report = postStream(body, "text/csv");
+        assertEquals(2, report.getSaved());
+        assertEquals(0, report.getRejected());
+        assertEquals(90 + 10, rewardsService.getRewardsByCustomerId(52L).getTotalRewards());
+
+        IngestionReportDTO unparseable = postStream("\"customerId,transactionAmount\n52,60.0\n", "text/csv");
+        assertEquals(0, unparseable.getSaved());
+        assertEquals(1, unparseable.getErrors().get(0).getLine());
+        assertTrue(unparseable.getErrors().get(0).getMessage().startsWith("Unparseable header"));
+    }
+
+    private IngestionReportDTO postStream(String body, String contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        ResponseEntity<IngestionReportDTO> response = restTemplate.postForEntity("/api/rewards/transactions/stream",
+                new HttpEntity<>(body, headers), IngestionReportDTO.class);
+        assertEquals(200, response.getStatusCodeValue());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
+
+    @Test
+    public void testLedgerIsMaintainedOnSaveAndReconciled() {
+        List<TransactionDTO> upload = new ArrayList<>();
+        for (int monthOffset = 0; monthOffset <= 4; monthOffset++) {
+            Date date = Date.from(LocalDate.now().minusMonths(monthOffset).withDayOfMonth(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            upload.add(TransactionDTO.builder().customerId(40L).transactionAmount(120.30 + monthOffset).transactionDate(date).build());
+            upload.add(TransactionDTO.builder().customerId(40L).transactionAmount(60.0).transactionDate(date).build());
+        }
+        rewardsService.saveTransactions(upload);
+        rewardsService.saveTransaction(TransactionDTO.builder().customerId(41L).transactionAmount(75.0)
+                .transactionDate(upload.get(2).getTransactionDate()).build());
+
+        // Only the rows seeded straight through the repository are missing from the ledger
+        LedgerReconcileReportDTO check = rewardLedgerService.reconcile(false);
+        assertEquals(1, check.getDriftedRows());
+        assertEquals(1L, check.getDriftSamples().get(0).getCustomerId());
+        assertEquals(1, rewardLedgerService.reconcile(false).getDriftedRows());
+
+        assertEquals(1, rewardLedgerService.reconcile(true).getDriftedRows());
+        assertEquals(0, rewardLedgerService.reconcile(false).getDriftedRows());
+
+        String lastMonth = YearMonth.now().minusMonths(1).toString();
+        ledgerRepository.save(new CustomerMonthlyReward(40L, lastMonth, 1, 1));
+        LedgerReconcileReportDTO drifted = rewardLedgerService.reconcile(false);
+        assertEquals(1, drifted.getDriftedRows());
+        assertEquals(1, drifted.getDriftSamples().get(0).getLedgerPoints());
+        assertEquals(92 + 10, drifted.getDriftSamples().get(0).getExpectedPoints());
+        rewardLedgerService.reconcile(true);
+
+        RewardsDTO fromTransactions = rewardsService.getRewardsByCustomerId(40L);
+        ReflectionTestUtils.setField(rewardsService, "ledgerReadEnabled", true);
+        rewardsCache.invalidateAll();
+        try {
+            RewardsDTO fromLedger = rewardsService.getRewardsByCustomerId(40L);
+            assertEquals(fromTransactions.getMonthlyRewards(), fromLedger.getMonthlyRewards());
+            assertEquals(fromTransactions.getTotalRewards(), fromLedger.getTotalRewards());
+            assertEquals(25, rewardsService.getRewardsByCustomerId(41L).getTotalRewards());
+        } finally {
+            ReflectionTestUtils.setField(rewardsService, "ledgerReadEnabled", false);
+        }
+    }
+
+    @Test
+    public void testLedgerRepairSkipsRowsChangedBySaves() throws Exception {
+        Date lastMonth = Date.from(LocalDate.now().minusMonths(1).withDayOfMonth(10).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        TransactionDTO save = TransactionDTO.builder().customerId(50L).transactionAmount(120.0).transactionDate(lastMonth).build();
+        rewardsService.saveTransaction(save);
+        // Seeded straight through the repository, so the ledger row is one transaction behind
+        transactionRepository.save(new Transaction(null, 50L, new Timestamp(lastMonth.getTime()), 200.0));
+
+        // Another save commits after the reconcile has read both the ledger and TRANSACTION
+        AtomicBoolean raced = new AtomicBoolean();
+        TransactionRepository racingRepository = (TransactionRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{TransactionRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(transactionRepository, args);
+                    if (method.getName().equals("aggregateRewardsByCalendarMonth") && raced.compareAndSet(false, true)) {
+                        CompletableFuture.runAsync(() -> rewardsService.saveTransaction(save)).get();
+                    }
+                    return result;
+                });
+        RewardLedgerService racingLedger = new RewardLedgerService(ledgerRepository, racingRepository, archiveRepository,
+                dataSource, transactionManager, rewardsVersionService, rewardsMetrics, rewardRules);
+
+        LedgerReconcileReportDTO report = racingLedger.reconcile(true);
+        assertTrue(raced.get());
+        assertEquals(1, report.getSkippedRows());
+
+        // The skipped row kept the concurrent save, and the next run repairs it
+        CustomerMonthlyRewardId id = new CustomerMonthlyRewardId(50L, YearMonth.now().minusMonths(1).toString());
+        assertEquals(2 * 90, ledgerRepository.findById(id).orElseThrow().getPoints());
+        assertEquals(0, rewardLedgerService.reconcile(true).getSkippedRows());
+        CustomerMonthlyReward repaired = ledgerRepository.findById(id).orElseThrow();
+        assertEquals(2 * 90 + 250, repaired.getPoints());
+        assertEquals(3, repaired.getTransactionCount());
+    }
+
+    @Test
+    public void testAggregatedRewardsMatchPerMonthQueries() {
+        double[] amounts = {0.5, 50.0, 50.5, 75.0, 100.0, 100.99, 120.30, 250.75};
+        for (long customerId = 10; customerId < 14; customerId++) {
+            for (int monthOffset = 0; monthOffset <= 4; monthOffset++) {
+                LocalDate month = LocalDate.now().minusMonths(monthOffset);
+                for (int i = 0; i < amounts.length; i++) {
+                    double amount = amounts[(int) ((i + customerId + monthOffset) % amounts.length)];
+                    LocalDateTime when = month.withDayOfMonth(1 + i % month.lengthOfMonth()).atTime(i % 24, 30);
+                    transactionRepository.save(new Transaction(null, customerId, timestamp(when), amount));
+                }
+                // Month boundaries are inclusive on both ends
+                transactionRepository.save(new Transaction(null, customerId, timestamp(month.withDayOfMonth(1).atStartOfDay()), 150.0));
+                transactionRepository.save(new Transaction(null, customerId,
+                        timestamp(month.withDayOfMonth(month.lengthOfMonth()).atTime(23, 59, 59)), 150.0));
+            }
+        }
+        // Only transactions older than the window: the customer exists but has no rewards
+        transactionRepository.save(new Transaction(null, 20L,
+                timestamp(LocalDate.now().minusMonths(6).atStartOfDay()), 500.0));
+
+        for (long customerId = 10; customerId < 14; customerId++) {
+            RewardsDTO rewards = rewardsService.getRewardsByCustomerId(customerId);
+            long total = 0;
+            for (int monthOffset = 1; monthOffset <= 3; monthOffset++) {
+                long expected = perMonthQueryPoints(customerId, monthOffset);
+                assertEquals(expected, rewards.getMonthlyRewards().get(monthName(YearMonth.now().minusMonths(monthOffset))));
+                total += expected;
+            }
+            assertEquals(total, rewards.getTotalRewards());
+        }
+
+        BatchRewardsDTO batch = rewardsService.getRewardsForCustomers(Arrays.asList(10L, 11L, 12L, 13L, 20L));
+        for (RewardsDTO rewards : batch.getRewards()) {
+            RewardsDTO single = rewardsService.getRewardsByCustomerId(rewards.getCustomerId());
+            assertEquals(single.getMonthlyRewards(), rewards.getMonthlyRewards());
+            assertEquals(single.getTotalRewards(), rewards.getTotalRewards());
+        }
+        assertEquals(5, batch.getRewards().size());
+
+        RewardsDTO inactive = rewardsService.getRewardsByCustomerId(20L);
+        assertEquals(0, inactive.getTotalRewards());
+        assertEquals(3, inactive.getMonthlyRewards().size());
+    }
+
+    /**
+     * Reference implementation: one query per month over the transaction entities, scored in Java.
+     */
+    private long perMonthQueryPoints(Long customerId, int monthOffset) {
+        LocalDate month = LocalDate.now().minusMonths(monthOffset);
+        Date start = Date.from(month.withDayOfMonth(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date end = Date.from(month.withDayOfMonth(month.lengthOfMonth()).atTime(23, 59, 59)
+                .atZone(ZoneId.systemDefault()).toInstant());
+        return transactionRepository.findAllByCustomerIdAndTransactionDateBetween(customerId, start, end).stream()
+                .mapToLong(transaction -> {
+                    double amount = transaction.getTransactionAmount();
+                    if (amount > 100) {
+                        return (long) ((amount - 100) * 2 + 50);
+                    } else if (amount > 50) {
+                        return (long) (amount - 50);
+                    }
+                    return 0;
+                })
+                .sum();
+    }
+
+    private Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime);
+    }
+}
@@ -0,0 +1,86 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.event.TransactionsSavedEvent;
+import com.SpringbootApplication.CustomerRewardApplication.leaderboard.RewardsLeaderboard;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.LeaderboardEntryDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class RewardsLeaderboardTest {
+
+    private RewardsLeaderboard leaderboard;
+
+    @BeforeEach
+    public void setup() {
+        leaderboard = new RewardsLeaderboard(mock(TransactionRepository.class), RewardRules.standard());
+    }
+
+    @Test
+    public void testConcurrentUpdatesKeepRankingConsistent() throws Exception {
+        int customers = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        long customerId = i % customers;
+                        // Customer n earns n + 1 points per transaction
+                        save(customerId, 51.0 + customerId);
+                        // Readers never see more than one entry per customer
+                        LeaderboardDTO top = leaderboard.top(10);
+                        assertEquals(top.getEntries().size(),
+                                top.getEntries().stream().map(LeaderboardEntryDTO::getCustomerId).distinct().count());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<LeaderboardEntryDTO> entries = leaderboard.top(customers).getEntries();
+        assertEquals(customers, entries.size());
+        for (int rank = 0; rank < customers; rank++) {
+            long customerId = customers - 1 - rank;
+            assertEquals(customerId, entries.get(rank).getCustomerId());
+            assertEquals(8 * 20 * (customerId + 1), entries.get(rank).getPoints());
+        }
+    }
+
+    @Test
+    public void testIgnoresOtherQuartersAndZeroPoints() {
+        save(1L, 120.0);
+        save(2L, 40.0);
+        leaderboard.onTransactionsSaved(new TransactionsSavedEvent(Collections.singletonList(
+                new Transaction(3L, 3L, Timestamp.valueOf(LocalDateTime.now().minusMonths(3)), 500.0))));
+
+        List<LeaderboardEntryDTO> entries = leaderboard.top(10).getEntries();
+        assertEquals(1, entries.size());
+        assertEquals(1L, entries.get(0).getCustomerId());
+        assertEquals(90, entries.get(0).getPoints());
+    }
+
+    private void save(long customerId, double amount) {
+        leaderboard.onTransactionsSaved(new TransactionsSavedEvent(Collections.singletonList(
+                new Transaction(null, customerId, new Timestamp(System.currentTimeMillis()), amount))));
+    }
+}
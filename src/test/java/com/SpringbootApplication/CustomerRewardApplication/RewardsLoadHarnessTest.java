@@ -0,0 +1,338 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Open-model load test: seeds a synthetic population with {@link SyntheticTransactionGenerator}, then sends
+ * a mix of reward lookups and transaction writes at a fixed request rate and reports latency percentiles,
+ * throughput and error rates.
+ *
+ * Requests are issued on schedule whether or not earlier ones have finished, and latency is measured from
+ * the scheduled send time, so a stalled server shows up in the percentiles instead of slowing the client
+ * down (no coordinated omission).
+ *
+ * Disabled by default. Run with
+ * {@code mvn test -Dtest=RewardsLoadHarnessTest -Drewards.loadtest=true}
+ * and tune with {@code -Drewards.loadtest.rps=500 -Drewards.loadtest.duration=60
+ * -Drewards.loadtest.warmup=10 -Drewards.loadtest.write-percent=10 -Drewards.loadtest.write-batch=5}, plus
+ * the data settings of {@link SyntheticTransactionGenerator}. Use
+ * {@code -Dspring.datasource.url=jdbc:h2:file:./target/loadtest-db} to run against a file-backed database.
+ *
+ * The report is written as JSON to {@code rewards.loadtest.report} (default
+ * {@code target/loadtest/rewards-load-report.json}), next to one HdrHistogram percentile distribution
+ * ({@code .hgrm}) per operation. Any 5xx response fails the run, since it means a server bug rather than
+ * load; {@code -Drewards.loadtest.max-5xx} raises that limit. {@code -Drewards.loadtest.max-p99-ms} and
+ * {@code -Drewards.loadtest.max-error-rate} add latency and error-rate gates. The report lists the violations
+ * and the test fails.
+ */
+@EnabledIfSystemProperty(named = "rewards.loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.SpringbootApplication=INFO"
+})
+public class RewardsLoadHarnessTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardsLoadHarnessTest.class);
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    private final SyntheticTransactionGenerator generator = SyntheticTransactionGenerator.fromSystemProperties();
+    private final int rps = Integer.getInteger("rewards.loadtest.rps", 500);
+    private final int durationSeconds = Integer.getInteger("rewards.loadtest.duration", 30);
+    private final int warmupSeconds = Integer.getInteger("rewards.loadtest.warmup", 5);
+    private final int writePercent = Integer.getInteger("rewards.loadtest.write-percent", 10);
+    private final int writeBatch = Integer.getInteger("rewards.loadtest.write-batch", 5);
+    private final int maxInFlight = Integer.getInteger("rewards.loadtest.max-in-flight", 2_000);
+
+    @BeforeEach
+    public void seed() {
+        long started = System.nanoTime();
+        generator.seed(jdbcTemplate);
+        logger.info(String.format("Seeded %,d transactions for %,d customers in %d ms", generator.getTransactions(),
+                generator.getCustomers(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+    }
+
+    @Test
+    public void testMixedTraffic() throws Exception {
+        HttpClient client = HttpClient.newBuilder().build();
+        Random random = new Random(generator.getSeed());
+
+        run(client, random, warmupSeconds);
+        Operation read = new Operation("read");
+        Operation write = new Operation("write");
+        long started = System.nanoTime();
+        run(client, random, durationSeconds, read, write);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        Map<String, Object> report = report(elapsedSeconds, read, write);
+        Path reportPath = Path.of(System.getProperty("rewards.loadtest.report", "target/loadtest/rewards-load-report.json"));
+        write(reportPath, report, read, write);
+
+        @SuppressWarnings("unchecked")
+        List<String> violations = (List<String>) report.get("violations");
+        logger.info(String.format("rps=%d achieved=%.0f read p99=%.1f ms write p99=%.1f ms errors=%d/%d -> %s",
+                rps, report.get("achievedRps"), read.percentileMillis(99), write.percentileMillis(99),
+                read.errors() + write.errors(), read.requests() + write.requests(), reportPath.toAbsolutePath()));
+        assertTrue(violations.isEmpty(), String.join("; ", violations));
+    }
+
+    /**
+     * Sends requests at the target rate for the given time and waits for the last ones to finish. A request
+     * is not sent, and counts as an error, while {@code rewards.loadtest.max-in-flight} are still pending.
+     */
+    private void run(HttpClient client, Random random, int seconds) throws Exception {
+        run(client, random, seconds, new Operation("warmup-read"), new Operation("warmup-write"));
+    }
+
+    private void run(HttpClient client, Random random, int seconds, Operation read, Operation write) throws Exception {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long total = (long) rps * seconds;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean isWrite = random.nextInt(100) < writePercent;
+            HttpRequest request = isWrite ? writeRequest(random) : readRequest(random);
+            Operation operation = isWrite ? write : read;
+            if (!inFlight.tryAcquire()) {
+                operation.dropped.incrementAndGet();
+                continue;
+            }
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        inFlight.release();
+                        operation.record(intended, failure != null ? "exception" : String.valueOf(response.statusCode()));
+                    }));
+            if (pending.size() >= 10_000) {
+                pending.removeIf(CompletableFuture::isDone);
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .exceptionally(failure -> null)
+                .get(1, TimeUnit.MINUTES);
+    }
+
+    private HttpRequest readRequest(Random random) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rewards/" + generator.nextCustomerId(random)))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest writeRequest(Random random) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < writeBatch; i++) {
+            // From yesterday back, so that the noon timestamp is never in the future
+            LocalDate day = LocalDate.now().minusDays(1 + random.nextInt(90));
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"customerId\":").append(generator.nextCustomerId(random))
+                    .append(",\"transactionAmount\":").append(random.nextInt(30_000) / 100.0)
+                    .append(",\"transactionDate\":\"").append(day).append("T12:00:00.000+00:00\"}");
+        }
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rewards/transactions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                .build();
+    }
+
+    private Map<String, Object> report(double elapsedSeconds, Operation... operations) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("targetRps", rps);
+        config.put("durationSeconds", durationSeconds);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("writePercent", writePercent);
+        config.put("writeBatch", writeBatch);
+        config.put("customers", generator.getCustomers());
+        config.put("transactions", generator.getTransactions());
+        config.put("months", generator.getMonths());
+        config.put("hotCustomers", generator.getHotCustomers());
+        config.put("hotShare", generator.getHotShare());
+        config.put("seed", generator.getSeed());
+        config.put("profiles", Arrays.asList(environment.getActiveProfiles()));
+        config.put("datasource", environment.getProperty("spring.datasource.url"));
+        config.put("javaVersion", System.getProperty("java.version"));
+
+        Double maxP99Millis = doubleProperty("rewards.loadtest.max-p99-ms");
+        Double maxErrorRate = doubleProperty("rewards.loadtest.max-error-rate");
+        long maxServerErrors = Long.getLong("rewards.loadtest.max-5xx", 0L);
+        List<String> violations = new ArrayList<>();
+        Map<String, Object> results = new LinkedHashMap<>();
+        long requests = 0;
+        for (Operation operation : operations) {
+            results.put(operation.name, operation.summary(elapsedSeconds));
+            requests += operation.requests();
+            if (maxP99Millis != null && operation.percentileMillis(99) > maxP99Millis) {
+                violations.add(String.format("%s p99 %.1f ms exceeds %.1f ms", operation.name,
+                        operation.percentileMillis(99), maxP99Millis));
+            }
+            if (operation.serverErrors() > maxServerErrors) {
+                violations.add(String.format("%s returned %d 5xx responses, more than %d", operation.name,
+                        operation.serverErrors(), maxServerErrors));
+            }
+            if (maxErrorRate != null && operation.errorRate() > maxErrorRate) {
+                violations.add(String.format("%s error rate %.4f exceeds %.4f", operation.name,
+                        operation.errorRate(), maxErrorRate));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("config", config);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("achievedRps", requests / elapsedSeconds);
+        report.put("operations", results);
+        report.put("violations", violations);
+        report.put("passed", violations.isEmpty());
+        return report;
+    }
+
+    private void write(Path reportPath, Map<String, Object> report, Operation... operations) throws IOException {
+        Path directory = reportPath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+        for (Operation operation : operations) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(operation.name + ".hgrm")))) {
+                // Values are recorded in microseconds and printed in milliseconds
+                operation.histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static Double doubleProperty(String name) {
+        String value = System.getProperty(name);
+        return value == null ? null : Double.valueOf(value);
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final Map<String, LongAdder> outcomes = new ConcurrentSkipListMap<>();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param outcome the HTTP status, or {@code exception} when no response came back
+         */
+        private void record(long intendedNanos, String outcome) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+            histogram.recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+            if (!outcome.startsWith("2")) {
+                failed.incrementAndGet();
+            }
+        }
+
+        private long requests() {
+            return histogram.getTotalCount() + dropped.get();
+        }
+
+        private long errors() {
+            return failed.get() + dropped.get();
+        }
+
+        private long serverErrors() {
+            return outcomes.entrySet().stream()
+                    .filter(outcome -> outcome.getKey().startsWith("5"))
+                    .mapToLong(outcome -> outcome.getValue().sum())
+                    .sum();
+        }
+
+        private double errorRate() {
+            long requests = requests();
+            return requests == 0 ? 0 : (double) errors() / requests;
+        }
+
+        private double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        private Map<String, Object> summary(double elapsedSeconds) {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentileMillis(50));
+            latency.put("p90", percentileMillis(90));
+            latency.put("p99", percentileMillis(99));
+            latency.put("p999", percentileMillis(99.9));
+            latency.put("max", histogram.getMaxValue() / 1000.0);
+            latency.put("mean", histogram.getMean() / 1000.0);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", requests());
+            summary.put("errors", errors());
+            summary.put("dropped", dropped.get());
+            summary.put("errorRate", errorRate());
+            summary.put("serverErrors", serverErrors());
+            summary.put("outcomes", outcomes);
+            // Completed requests per second, successful or not
+            summary.put("throughput", histogram.getTotalCount() / elapsedSeconds);
+            summary.put("latencyMillis", latency);
+            return summary;
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package com.SpringbootApplication.CustomerRewardApplication;
 
+import com.SpringbootApplication.CustomerRewardApplication.cache.RewardsCache;
 import com.SpringbootApplication.CustomerRewardApplication.entity.Transaction;
+import com.SpringbootApplication.CustomerRewardApplication.event.TransactionsSavedEvent;
 import com.SpringbootApplication.CustomerRewardApplication.exception.CustomerNotFoundException;
+import com.SpringbootApplication.CustomerRewardApplication.metrics.RewardsMetrics;
+import com.SpringbootApplication.CustomerRewardApplication.payload.BatchRewardsDTO;
 import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.MonthlyRewardPoints;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
 import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.SpringbootApplication.CustomerRewardApplication.service.QueryFanOut;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardLedgerService;
 import com.SpringbootApplication.CustomerRewardApplication.service.RewardsServiceImpl;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsVersionService;
+import com.SpringbootApplication.CustomerRewardApplication.store.InMemoryTransactionStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -22,32 +35,36 @@ import static org.mockito.Mockito.*;
 public class RewardsServiceImplTest {
 
     private TransactionRepository transactionRepository;
+    private TransactionArchiveRepository archiveRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RewardsCache rewardsCache;
+    private RewardsVersionService rewardsVersionService;
     private RewardsServiceImpl rewardsService;
 
     @BeforeEach
     public void setup() {
         transactionRepository = mock(TransactionRepository.class);
-        rewardsService = new RewardsServiceImpl(transactionRepository, new ModelMapper());
+        archiveRepository = mock(TransactionArchiveRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        rewardsCache = new RewardsCache(true, 100, Duration.ofMinutes(5), meterRegistry);
+        rewardsVersionService = mock(RewardsVersionService.class);
+        rewardsService = newRewardsService(1000);
+    }
+
+    private RewardsServiceImpl newRewardsService(int batchChunkSize) {
+        return new RewardsServiceImpl(transactionRepository, archiveRepository,
+                mock(RewardLedgerService.class), rewardsVersionService, rewardsCache, mock(ApplicationEventPublisher.class), new RewardsMetrics(meterRegistry),
+                new QueryFanOut(Executors.newFixedThreadPool(2), 2), mock(InMemoryTransactionStore.class),
+                RewardRules.standard(), batchChunkSize);
     }
 
     @Test
     public void testGetRewardsByCustomerId_validCustomer() {
         Long customerId = 1L;
 
-        // Use current time as sample transaction date
-        Date date = Date.from(LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant());
-        Timestamp timestamp = new Timestamp(date.getTime());
-
-        // Create sample transactions
-        List<Transaction> transactions = Arrays.asList(
-                new Transaction(1L, customerId, timestamp, 120.0),  // Reward: (120 - 100) * 2 + 50 = 90
-                new Transaction(2L, customerId, timestamp, 75.0),   // Reward: (75 - 50) = 25
-                new Transaction(3L, customerId, timestamp, 30.0)    // Reward: 0
-        );
-
-        when(transactionRepository.existsByCustomerId(customerId)).thenReturn(true);
-        when(transactionRepository.findAllByCustomerIdAndTransactionDateBetween(eq(customerId), any(), any()))
-                .thenReturn(transactions);
+        // Last month's transactions of 120.0, 75.0 and 30.0 aggregate to 90 + 25 + 0 points
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(customerId)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(customerId, 1, 115L)));
 
         List<RewardsDTO> rewards = rewardsService.getRewardsByCustomerId(Arrays.asList(customerId));
 
@@ -58,12 +75,13 @@ public class RewardsServiceImplTest {
         assertEquals(customerId, rewardsDTO.getCustomerId());
         assertEquals(115, rewardsDTO.getTotalRewards()); // (120 - 100) * 2 + 50 + (75 - 50) = 90 + 25 = 115
         assertTrue(rewardsDTO.getMonthlyRewards().size() >= 1); // Check that monthly rewards are present
+        verify(transactionRepository, never()).findExistingCustomerIds(any()); // Non-empty window needs no existence check
     }
 
     @Test
     public void testGetRewardsByCustomerId_customerNotFound() {
         Long customerId = 2L;
-        when(transactionRepository.existsByCustomerId(customerId)).thenReturn(false);
+        when(transactionRepository.findExistingCustomerIds(Arrays.asList(customerId))).thenReturn(Arrays.asList());
 
         RuntimeException exception = assertThrows(CustomerNotFoundException.class, () -> {
             rewardsService.getRewardsByCustomerId(Arrays.asList(customerId));
@@ -77,9 +95,9 @@ public class RewardsServiceImplTest {
         Long customerId = 3L;
 
         // Simulate no transactions for the customer
-        when(transactionRepository.existsByCustomerId(customerId)).thenReturn(true);
-        when(transactionRepository.findAllByCustomerIdAndTransactionDateBetween(eq(customerId), any(), any()))
-                .thenReturn(Arrays.asList()); // Empty list
+        when(transactionRepository.findExistingCustomerIds(Arrays.asList(customerId))).thenReturn(Arrays.asList(customerId));
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(customerId)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList()); // Empty window
 
         List<RewardsDTO> rewards = rewardsService.getRewardsByCustomerId(Arrays.asList(customerId));
 
@@ -88,4 +106,140 @@ public class RewardsServiceImplTest {
         assertEquals(customerId, rewardsDTO.getCustomerId());
         assertEquals(0, rewardsDTO.getTotalRewards()); // No transactions, no rewards
     }
+
+    @Test
+    public void testGetRewardsForCustomers_archivedCustomersExist() {
+        when(transactionRepository.findExistingCustomerIds(Arrays.asList(7L, 8L))).thenReturn(Arrays.asList(7L));
+        when(archiveRepository.findExistingCustomerIds(Arrays.asList(8L))).thenReturn(Arrays.asList(8L));
+        when(archiveRepository.existsByCustomerId(9L)).thenReturn(true);
+
+        BatchRewardsDTO batch = rewardsService.getRewardsForCustomers(Arrays.asList(7L, 8L));
+
+        assertEquals(2, batch.getRewards().size());
+        assertTrue(batch.getNotFoundCustomerIds().isEmpty());
+        // Customers whose transactions are all archived have no rewards, but are not unknown
+        assertEquals(0, rewardsService.getRewardsByCustomerId(9L).getTotalRewards());
+    }
+
+    @Test
+    public void testGetRewardsForCustomers_reportsUnknownCustomers() {
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(4L, 5L, 6L)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(4L, 1, 90L), monthlyPoints(4L, 3, 25L)));
+        when(transactionRepository.findExistingCustomerIds(Arrays.asList(5L, 6L))).thenReturn(Arrays.asList(5L));
+
+        BatchRewardsDTO batch = rewardsService.getRewardsForCustomers(Arrays.asList(4L, 5L, 6L, 4L));
+
+        assertEquals(2, batch.getRewards().size());
+        assertEquals(4L, batch.getRewards().get(0).getCustomerId());
+        assertEquals(115, batch.getRewards().get(0).getTotalRewards());
+        assertEquals(5L, batch.getRewards().get(1).getCustomerId());
+        assertEquals(0, batch.getRewards().get(1).getTotalRewards());
+        assertEquals(Arrays.asList(6L), batch.getNotFoundCustomerIds());
+        assertEquals(1.0, meterRegistry.get("rewards.customer.not.found").tag("source", "batch").counter().count());
+        verify(transactionRepository, times(1)).sumRewardPointsByMonthForCustomers(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testRejectsNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> newRewardsService(0));
+        assertThrows(IllegalArgumentException.class, () -> newRewardsService(-1));
+    }
+
+    @Test
+    public void testGetRewardsForCustomers_chunksKeepInputOrder() {
+        rewardsService = newRewardsService(2);
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(4L, 5L)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(5L, 2, 30L)));
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(6L, 7L)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(6L, 1, 10L), monthlyPoints(7L, 1, 20L)));
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(8L)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(8L, 3, 40L)));
+
+        BatchRewardsDTO batch = rewardsService.getRewardsForCustomers(Arrays.asList(4L, 5L, 6L, 7L, 8L));
+
+        assertEquals(Arrays.asList(5L, 6L, 7L, 8L), batch.getRewards().stream().map(RewardsDTO::getCustomerId).toList());
+        assertEquals(Arrays.asList(30L, 10L, 20L, 40L), batch.getRewards().stream().map(RewardsDTO::getTotalRewards).toList());
+        assertEquals(Arrays.asList(4L), batch.getNotFoundCustomerIds());
+        verify(transactionRepository, times(3)).sumRewardPointsByMonthForCustomers(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetRewardsByCustomerId_cachedUntilCustomerWrites() {
+        Long customerId = 7L;
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(customerId)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(customerId, 2, 40L)));
+
+        assertEquals(40, rewardsService.getRewardsByCustomerId(customerId).getTotalRewards());
+        assertEquals(40, rewardsService.getRewardsByCustomerId(customerId).getTotalRewards());
+        verify(transactionRepository, times(1)).sumRewardPointsByMonthForCustomers(any(), any(), any(), any(), any(), any(), any());
+
+        // A write for another customer leaves the entry alone, a write for this one drops it
+        rewardsCache.onTransactionsSaved(new TransactionsSavedEvent(Arrays.asList(new Transaction(1L, 8L, null, 10.0))));
+        rewardsService.getRewardsByCustomerId(customerId);
+        verify(transactionRepository, times(1)).sumRewardPointsByMonthForCustomers(any(), any(), any(), any(), any(), any(), any());
+
+        rewardsCache.onTransactionsSaved(new TransactionsSavedEvent(Arrays.asList(new Transaction(2L, customerId, null, 10.0))));
+        rewardsService.getRewardsByCustomerId(customerId);
+        verify(transactionRepository, times(2)).sumRewardPointsByMonthForCustomers(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetRewardsIfModified_agreesWithCachedRewards() {
+        Long customerId = 10L;
+        when(rewardsVersionService.findVersion(customerId)).thenReturn(3L);
+        when(transactionRepository.sumRewardPointsByMonthForCustomers(eq(Arrays.asList(customerId)), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Arrays.asList(monthlyPoints(customerId, 1, 90L)));
+
+        // A miss reads the version once and stamps it on the rewards it computes
+        String version = rewardsService.getRewardsIfModified(customerId, tag -> false).orElseThrow().getVersion();
+        assertTrue(version.startsWith("\"" + YearMonth.now() + "-3-"), version);
+        verify(rewardsVersionService, times(1)).findVersion(customerId);
+
+        // Committed but not yet invalidated: the version stays that of the cached rewards
+        when(rewardsVersionService.findVersion(customerId)).thenReturn(4L);
+        assertEquals(Optional.empty(), rewardsService.getRewardsIfModified(customerId, version::equals));
+
+        // Once invalidated, the new version is checked before anything is computed
+        rewardsCache.onTransactionsSaved(new TransactionsSavedEvent(Arrays.asList(new Transaction(43L, customerId, null, 10.0))));
+        List<String> checked = new ArrayList<>();
+        assertEquals(Optional.empty(), rewardsService.getRewardsIfModified(customerId, checked::add));
+        assertTrue(checked.get(0).startsWith("\"" + YearMonth.now() + "-4-"), checked.toString());
+        verify(transactionRepository, times(1)).sumRewardPointsByMonthForCustomers(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetRewardsByCustomerId_notFoundIsNotCached() {
+        Long customerId = 9L;
+        when(transactionRepository.existsByCustomerId(customerId)).thenReturn(false);
+
+        assertThrows(CustomerNotFoundException.class, () -> rewardsService.getRewardsByCustomerId(customerId));
+        assertThrows(CustomerNotFoundException.class, () -> rewardsService.getRewardsByCustomerId(customerId));
+        verify(transactionRepository, times(2)).existsByCustomerId(customerId);
+        assertEquals(2.0, meterRegistry.get("rewards.customer.not.found").tag("source", "single").counter().count());
+        assertEquals(2, meterRegistry.get("rewards.lookup").tag("type", "single").timer().count());
+    }
+
+    private MonthlyRewardPoints monthlyPoints(Long customerId, int monthOffset, long points) {
+        return new MonthlyRewardPoints() {
+            @Override
+            public Long getCustomerId() {
+                return customerId;
+            }
+
+            @Override
+            public Integer getMonthOffset() {
+                return monthOffset;
+            }
+
+            @Override
+            public Long getPoints() {
+                return points;
+            }
+
+            @Override
+            public Long getTransactionCount() {
+                return 1L;
+            }
+        };
+    }
 }
@@ -0,0 +1,230 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares startup time and first-request latency of the packaged application across launch modes:
+ * default settings, the {@code prod} profile, and with {@code -Pcds} also the extracted jar with and
+ * without Spring AOT and the CDS archive.
+ *
+ * Each mode is launched {@code rewards.benchmark.startup-runs} times (5) in a fresh JVM. Measured per launch:
+ * time from process start until the port accepts connections, Spring's own "Started ... in" time, and the
+ * latency of the first transaction write and the first rewards read that follow. The medians are printed and
+ * written to {@code target/startup/startup-report.json}.
+ *
+ * Disabled by default, and needs a packaged jar. Run with:
+ * {@code mvn -Pcds -DskipTests package && mvn test -Dtest=StartupBenchmarkTest -Drewards.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "rewards.benchmark", matches = "true")
+public class StartupBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmarkTest.class);
+
+    private static final Path TARGET = Path.of("target");
+    private static final Path EXTRACTED = TARGET.resolve("application");
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    private final int runs = Integer.getInteger("rewards.benchmark.startup-runs", 5);
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @Test
+    public void testStartupModes() throws Exception {
+        Path jar = findJar(TARGET);
+        assumeTrue(jar != null, "No packaged jar in target, run mvn package first");
+
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("default", TARGET, jar, List.of()));
+        modes.add(new Mode("prod", TARGET, jar, List.of("-Dspring.profiles.active=prod")));
+        if (Files.exists(EXTRACTED.resolve("application.jsa"))) {
+            Path extractedJar = findJar(EXTRACTED);
+            modes.add(new Mode("prod-extracted", EXTRACTED, extractedJar, List.of("-Dspring.profiles.active=prod")));
+            modes.add(new Mode("prod-aot", EXTRACTED, extractedJar,
+                    List.of("-Dspring.profiles.active=prod", "-Dspring.aot.enabled=true")));
+            modes.add(new Mode("prod-aot-cds", EXTRACTED, extractedJar,
+                    List.of("-Dspring.profiles.active=prod", "-Dspring.aot.enabled=true",
+                            "-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=off")));
+        }
+
+        warmUpClient();
+        Path logs = Files.createDirectories(TARGET.resolve("startup"));
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Mode mode : modes) {
+            long[][] samples = new long[4][runs];
+            for (int run = 0; run < runs; run++) {
+                long[] sample = launch(mode, logs.resolve(mode.name + "-" + run + ".log"));
+                for (int metric = 0; metric < sample.length; metric++) {
+                    samples[metric][run] = sample[metric];
+                }
+            }
+            Map<String, Object> medians = new LinkedHashMap<>();
+            medians.put("readyMillis", median(samples[0]) / 1_000.0);
+            medians.put("startedMillis", median(samples[1]) / 1_000.0);
+            medians.put("firstWriteMillis", median(samples[2]) / 1_000.0);
+            medians.put("firstReadMillis", median(samples[3]) / 1_000.0);
+            results.put(mode.name, medians);
+            logger.info(String.format("%-15s ready=%6.0f ms started=%6.0f ms first write=%5.1f ms first read=%5.1f ms",
+                    mode.name, medians.get("readyMillis"), medians.get("startedMillis"),
+                    medians.get("firstWriteMillis"), medians.get("firstReadMillis")));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("runs", runs);
+        report.put("modes", results);
+        new ObjectMapper().writer(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(logs.resolve("startup-report.json").toFile(), report);
+    }
+
+    /**
+     * Starts the application once and takes it down after the first write and read.
+     *
+     * @return ready time, Spring-reported startup time, first write and first read latency, in microseconds
+     */
+    private long[] launch(Mode mode, Path log) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArgs);
+        command.addAll(Arrays.asList("-jar", mode.jar.toAbsolutePath().toString(), "--server.port=" + port));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(mode.directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            awaitPort(process, port, log);
+            long ready = System.nanoTime() - start;
+
+            long writeStart = System.nanoTime();
+            HttpResponse<String> write = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rewards/transactions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "[{\"customerId\":1,\"transactionAmount\":120.0,\"transactionDate\":\"2020-01-01T12:00:00.000+00:00\"}]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            long firstWrite = System.nanoTime() - writeStart;
+            assertEquals(200, write.statusCode(), write.body());
+
+            long readStart = System.nanoTime();
+            HttpResponse<String> read = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rewards/1"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            long firstRead = System.nanoTime() - readStart;
+            assertEquals(200, read.statusCode(), read.body());
+
+            return new long[]{TimeUnit.NANOSECONDS.toMicros(ready), startedMicros(log),
+                    TimeUnit.NANOSECONDS.toMicros(firstWrite), TimeUnit.NANOSECONDS.toMicros(firstRead)};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void awaitPort(Process process, int port, Path log) throws InterruptedException {
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertTrue(process.isAlive(), "Application exited during startup, see " + log);
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(5);
+            }
+        }
+        fail("Application did not open port " + port + " within " + READY_TIMEOUT + ", see " + log);
+    }
+
+    private static long startedMicros(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        assertTrue(matcher.find(), "No startup line in " + log);
+        return (long) (Double.parseDouble(matcher.group(1)) * 1_000_000);
+    }
+
+    /**
+     * Loads the client's own classes before anything is timed, so the first mode is not charged for them.
+     */
+    private void warmUpClient() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Path findJar(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static final class Mode {
+        private final String name;
+        private final Path directory;
+        private final Path jar;
+        private final List<String> jvmArgs;
+
+        private Mode(String name, Path directory, Path jar, List<String> jvmArgs) {
+            this.name = name;
+            this.directory = directory;
+            this.jar = jar;
+            this.jvmArgs = jvmArgs;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Random;
+
+/**
+ * Bulk-seeds TRANSACTION with a reproducible synthetic population for load tests.
+ *
+ * Rows are generated inside H2 with one INSERT ... SELECT per million rows; every column is a fixed function
+ * of the row number and the seed, so the same settings always produce the same table. A share of the rows
+ * goes to a small set of hot customers, and dates are skewed towards the present the way real activity is.
+ * Settings are read from system properties:
+ * <ul>
+ * <li>{@code rewards.loadtest.customers} (10000), {@code rewards.loadtest.transactions} (1000000)</li>
+ * <li>{@code rewards.loadtest.months} (12): how far back transaction dates go</li>
+ * <li>{@code rewards.loadtest.hot-customers} (100), {@code rewards.loadtest.hot-share} (30): the percentage
+ * of transactions and of generated traffic that goes to the hot customers</li>
+ * <li>{@code rewards.loadtest.seed} (42)</li>
+ * </ul>
+ */
+public class SyntheticTransactionGenerator {
+
+    // Seeded rows sit far above the IDs TRANSACTION_SEQ hands out during the run
+    private static final long FIRST_ID = 1_000_000_000L;
+    private static final int ROWS_PER_STATEMENT = 1_000_000;
+
+    private final int customers;
+    private final int transactions;
+    private final int months;
+    private final int hotCustomers;
+    private final int hotShare;
+    private final long seed;
+
+    public SyntheticTransactionGenerator(int customers, int transactions, int months,
+                                         int hotCustomers, int hotShare, long seed) {
+        if (hotCustomers <= 0 || hotCustomers >= customers) {
+            throw new IllegalArgumentException("hot customers must be between 1 and " + (customers - 1));
+        }
+        this.customers = customers;
+        this.transactions = transactions;
+        this.months = months;
+        this.hotCustomers = hotCustomers;
+        this.hotShare = hotShare;
+        this.seed = seed;
+    }
+
+    public static SyntheticTransactionGenerator fromSystemProperties() {
+        return new SyntheticTransactionGenerator(
+                Integer.getInteger("rewards.loadtest.customers", 10_000),
+                Integer.getInteger("rewards.loadtest.transactions", 1_000_000),
+                Integer.getInteger("rewards.loadtest.months", 12),
+                Integer.getInteger("rewards.loadtest.hot-customers", 100),
+                Integer.getInteger("rewards.loadtest.hot-share", 30),
+                Long.getLong("rewards.loadtest.seed", 42L));
+    }
+
+    /**
+     * Inserts the rows and refreshes the optimizer statistics.
+     */
+    public void seed(JdbcTemplate jdbcTemplate) {
+        for (long from = 1; from <= transactions; from += ROWS_PER_STATEMENT) {
+            long to = Math.min(from + ROWS_PER_STATEMENT - 1, transactions);
+            jdbcTemplate.update("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                    + "SELECT " + FIRST_ID + " + X, "
+                    // Hot rows go to customers 1..hot, the rest spread over the others. The hot/cold draw uses a
+                    // prime modulus so that it is not correlated with the customer draws
+                    + "CASE WHEN MOD(X * 2654435761 + ?, 1000003) * 100 < ? * 1000003 THEN 1 + MOD(X * 40503 + ?, ?) "
+                    + "ELSE 1 + ? + MOD(X * 69069 + ?, ?) END, "
+                    // The square of a uniform fraction puts most dates in the recent months
+                    + "DATEADD('MINUTE', -CAST(POWER(MOD(X * 1103515245 + ?, 1000000) / 1000000.0, 2) * ? AS INT), "
+                    + "CURRENT_TIMESTAMP), "
+                    + "MOD(X * 48271 + ?, 30000) / 100.0 "
+                    + "FROM SYSTEM_RANGE(?, ?)",
+                    seed, hotShare, seed, hotCustomers,
+                    hotCustomers, seed, customers - hotCustomers,
+                    seed, months * 30L * 24 * 60,
+                    seed, from, to);
+        }
+        jdbcTemplate.execute("ANALYZE TABLE TRANSACTION");
+    }
+
+    /**
+     * Picks a customer with the same hot/cold split as the seeded rows.
+     */
+    public long nextCustomerId(Random random) {
+        if (random.nextInt(100) < hotShare) {
+            return 1 + random.nextInt(hotCustomers);
+        }
+        return 1 + hotCustomers + random.nextInt(customers - hotCustomers);
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public int getMonths() {
+        return months;
+    }
+
+    public int getHotCustomers() {
+        return hotCustomers;
+    }
+
+    public int getHotShare() {
+        return hotShare;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,39 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Transactions and month names shared by the tests that save through the service.
+ */
+public final class TestTransactions {
+
+    private TestTransactions() {
+    }
+
+    /**
+     * Returns a transaction at the start of the month {@code monthsAgo} months before the current one, so it is
+     * never in the future.
+     */
+    public static TransactionDTO transaction(Long customerId, int monthsAgo, double amount) {
+        YearMonth month = YearMonth.now().minusMonths(monthsAgo);
+        return TransactionDTO.builder()
+                .customerId(customerId)
+                .transactionAmount(amount)
+                .transactionDate(Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                .build();
+    }
+
+    /**
+     * Returns the key of a month in the monthly rewards, such as {@code January}, spelled out independently of
+     * the code under test.
+     */
+    public static String monthName(YearMonth month) {
+        return month.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+    }
+}
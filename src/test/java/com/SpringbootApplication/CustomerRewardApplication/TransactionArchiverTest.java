@@ -0,0 +1,103 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.archive.TransactionArchiver;
+import com.SpringbootApplication.CustomerRewardApplication.cache.RewardsCache;
+import com.SpringbootApplication.CustomerRewardApplication.payload.RewardsDTO;
+import com.SpringbootApplication.CustomerRewardApplication.repository.CustomerMonthlyRewardRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardLedgerService;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import static com.SpringbootApplication.CustomerRewardApplication.TestTransactions.transaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the monthly roll-over of cold transactions into TRANSACTION_ARCHIVE.
+ */
+@SpringBootTest
+public class TransactionArchiverTest {
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private RewardsService rewardsService;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveRepository archiveRepository;
+
+    @Autowired
+    private CustomerMonthlyRewardRepository ledgerRepository;
+
+    @Autowired
+    private RewardsCache rewardsCache;
+
+    @BeforeEach
+    public void setup() {
+        cleanup();
+        rewardsService.saveTransactions(Arrays.asList(
+                transaction(50L, 1, 120.0),
+                transaction(50L, 6, 120.0),
+                transaction(51L, 6, 200.0),
+                transaction(51L, 14, 75.0)));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionRepository.deleteAll();
+        archiveRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        rewardsCache.invalidateAll();
+    }
+
+    @Test
+    public void testMovesColdMonthsOnly() {
+        RewardsDTO before = rewardsService.getRewardsByCustomerId(50L);
+
+        assertEquals(3, transactionArchiver.archive(YearMonth.now()));
+
+        assertEquals(1, transactionRepository.count());
+        assertEquals(3, archiveRepository.count());
+        // Running again finds nothing left to move
+        assertEquals(0, transactionArchiver.archive(YearMonth.now()));
+
+        rewardsCache.invalidateAll();
+        assertEquals(before.getTotalRewards(), rewardsService.getRewardsByCustomerId(50L).getTotalRewards());
+        // Customer 51 only has archived transactions: known, with nothing in the window
+        assertEquals(0, rewardsService.getRewardsByCustomerId(51L).getTotalRewards());
+    }
+
+    @Test
+    public void testArchiveMoveChangesVersion() {
+        // Cached along with its version
+        String before = rewardsService.getRewardsByCustomerId(51L).getVersion();
+        assertNotNull(before);
+
+        transactionArchiver.archive(YearMonth.now());
+
+        RewardsDTO after = rewardsService.getRewardsIfModified(51L, before::equals).orElseThrow();
+        assertNotEquals(before, after.getVersion());
+    }
+
+    @Test
+    public void testLedgerStillReconcilesAfterArchiving() {
+        transactionArchiver.archive(YearMonth.now());
+
+        assertEquals(0, rewardLedgerService.reconcile(false).getDriftedRows());
+    }
+}
@@ -0,0 +1,115 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeded benchmark showing that reward lookup latency does not grow with the size of TRANSACTION.
+ *
+ * The measured customers keep the same rows at every size while rows of other customers are added around them,
+ * so only the size of the table changes between measurements. The JIT is warmed up before the first size is
+ * measured, so the smallest size is not measured cold.
+ *
+ * Disabled by default. Run with:
+ * {@code mvn test -Dtest=TransactionIndexBenchmarkTest -Drewards.benchmark=true [-Drewards.benchmark.sizes=10000,100000,1000000,10000000]}
+ * The 10M row size does not fit a 4 GB heap with the in-memory database; point {@code spring.datasource.url} at
+ * a file database to run it.
+ */
+@EnabledIfSystemProperty(named = "rewards.benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "rewards.cache.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.SpringbootApplication=INFO"
+})
+public class TransactionIndexBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIndexBenchmarkTest.class);
+
+    private static final int MEASURED_CUSTOMERS = 500;
+    private static final int ROWS_PER_CUSTOMER = 12;
+    private static final int JIT_WARMUP_LOOKUPS = 20_000;
+    private static final int WARMUP_LOOKUPS = 2_000;
+    private static final int MEASURED_LOOKUPS = 5_000;
+    // p99 at the largest size may be at most this many times the p99 at the smallest size
+    private static final double MAX_P99_GROWTH = 3.0;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RewardsServiceImpl rewardsService;
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+    }
+
+    @Test
+    public void testLookupLatencyStaysFlatAsTableGrows() {
+        long[] sizes = Arrays.stream(System.getProperty("rewards.benchmark.sizes", "10000,100000,1000000").split(","))
+                .mapToLong(size -> Long.parseLong(size.trim()))
+                .sorted()
+                .toArray();
+        long measuredRows = (long) MEASURED_CUSTOMERS * ROWS_PER_CUSTOMER;
+        assertTrue(sizes[0] >= measuredRows, "sizes must start at " + measuredRows + " rows or more");
+
+        // The measured customers, with the same rows over the last six months at every size
+        jdbcTemplate.update("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                + "SELECT X, MOD(X, " + MEASURED_CUSTOMERS + "), "
+                + "DATEADD('MINUTE', -MOD(X * 7919, 262800), CURRENT_TIMESTAMP), MOD(X * 31, 25000) / 100.0 "
+                + "FROM SYSTEM_RANGE(1, ?)", measuredRows);
+
+        long seeded = measuredRows;
+        double[] p99 = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            // Grow the table in place with other customers, as many rows each as a measured customer
+            jdbcTemplate.update("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                    + "SELECT X, " + MEASURED_CUSTOMERS + " + X / " + ROWS_PER_CUSTOMER + ", "
+                    + "DATEADD('MINUTE', -MOD(X * 7919, 262800), CURRENT_TIMESTAMP), MOD(X * 31, 25000) / 100.0 "
+                    + "FROM SYSTEM_RANGE(?, ?)", seeded + 1, sizes[i]);
+            seeded = sizes[i];
+            jdbcTemplate.execute("ANALYZE TABLE TRANSACTION");
+
+            if (i == 0) {
+                lookUp(new Random(7), JIT_WARMUP_LOOKUPS);
+            }
+            p99[i] = measureP99Micros(new Random(42));
+            logger.info(String.format("rows=%,d p99=%.1f us", sizes[i], p99[i]));
+        }
+
+        assertTrue(p99[p99.length - 1] <= p99[0] * MAX_P99_GROWTH,
+                "p99 grew from " + p99[0] + " us to " + p99[p99.length - 1] + " us");
+    }
+
+    private double measureP99Micros(Random random) {
+        lookUp(random, WARMUP_LOOKUPS);
+        long[] latencies = new long[MEASURED_LOOKUPS];
+        for (int i = 0; i < MEASURED_LOOKUPS; i++) {
+            long customerId = random.nextInt(MEASURED_CUSTOMERS);
+            long start = System.nanoTime();
+            rewardsService.getRewardsByCustomerId(customerId);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[(int) Math.ceil(MEASURED_LOOKUPS * 0.99) - 1] / 1_000.0;
+    }
+
+    private void lookUp(Random random, int lookups) {
+        for (int i = 0; i < lookups; i++) {
+            rewardsService.getRewardsByCustomerId((long) random.nextInt(MEASURED_CUSTOMERS));
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionArchiveRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepository;
+import com.SpringbootApplication.CustomerRewardApplication.repository.TransactionRepositoryCustom;
+import com.SpringbootApplication.CustomerRewardApplication.rules.RewardRules;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsExportService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on H2 for the TRANSACTION and TRANSACTION_ARCHIVE queries and fails if any of them falls back to a
+ * table scan or skips the index it is expected to use.
+ *
+ * Every query method declared on the repositories is called, in a transaction that is rolled back, and the SQL
+ * Hibernate sends for it is recorded and explained, so native, JPQL and derived queries are checked as they run.
+ * A query method without an expected index fails the test.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.SpringbootApplication.CustomerRewardApplication.TransactionQueryPlanTest$RecordingStatementInspector")
+public class TransactionQueryPlanTest {
+
+    private static final String INDEX = "IDX_TRANSACTION_CUSTOMER_DATE";
+    private static final String ARCHIVE_INDEX = "IDX_TRANSACTION_ARCHIVE_CUSTOMER";
+    private static final String PRIMARY_KEY = "PRIMARY_KEY_";
+
+    // The indexes each repository query method must use, keyed by interface and method name
+    private static final Map<String, List<String>> EXPECTED_INDEXES = new HashMap<>();
+
+    static {
+        expect(TransactionRepository.class, "findAllByCustomerIdAndTransactionDateBetween", INDEX);
+        expect(TransactionRepository.class, "existsByCustomerId", INDEX);
+        expect(TransactionRepository.class, "findExistingCustomerIds", INDEX);
+        expect(TransactionRepository.class, "findAllCustomerIds", INDEX);
+        expect(TransactionRepository.class, "findMostActiveCustomerIdsSince", INDEX);
+        expect(TransactionRepository.class, "findIdsDatedBefore", PRIMARY_KEY);
+        expect(TransactionRepository.class, "findCustomerIdsByTransactionIdIn", PRIMARY_KEY);
+        expect(TransactionRepository.class, "deleteAllByTransactionIdIn", PRIMARY_KEY);
+        expect(TransactionRepositoryCustom.class, "sumRewardPointsByMonthForCustomers", INDEX);
+        expect(TransactionRepositoryCustom.class, "aggregateRewardsByCalendarMonth", INDEX, ARCHIVE_INDEX);
+        expect(TransactionRepositoryCustom.class, "sumRewardPointsByCustomer", INDEX);
+        expect(TransactionArchiveRepository.class, "existsByCustomerId", ARCHIVE_INDEX);
+        expect(TransactionArchiveRepository.class, "findExistingCustomerIds", ARCHIVE_INDEX);
+        expect(TransactionArchiveRepository.class, "findAllCustomerIds", ARCHIVE_INDEX);
+        expect(TransactionArchiveRepository.class, "copyFromTransactions", PRIMARY_KEY);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RewardRules rewardRules;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveRepository archiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setup() {
+        // Give the optimizer a table worth indexing
+        jdbcTemplate.update("DELETE FROM TRANSACTION");
+        jdbcTemplate.update("INSERT INTO TRANSACTION (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                + "SELECT X, MOD(X, 500), DATEADD('DAY', -MOD(X, 200), CURRENT_TIMESTAMP), MOD(X, 300) "
+                + "FROM SYSTEM_RANGE(1, 20000)");
+        jdbcTemplate.execute("ANALYZE TABLE TRANSACTION");
+        jdbcTemplate.update("DELETE FROM TRANSACTION_ARCHIVE");
+        jdbcTemplate.update("INSERT INTO TRANSACTION_ARCHIVE (TRANSACTION_ID, CUSTOMER_ID, TRANSACTION_DATE, AMOUNT) "
+                + "SELECT X, MOD(X, 500), DATEADD('DAY', -200 - MOD(X, 400), CURRENT_TIMESTAMP), MOD(X, 300) "
+                + "FROM SYSTEM_RANGE(1, 20000)");
+        jdbcTemplate.execute("ANALYZE TABLE TRANSACTION_ARCHIVE");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM TRANSACTION");
+        jdbcTemplate.update("DELETE FROM TRANSACTION_ARCHIVE");
+    }
+
+    @Test
+    public void testRepositoryQueriesUseTheirIndexes() {
+        checkQueryMethods(TransactionRepository.class, transactionRepository);
+        checkQueryMethods(TransactionRepositoryCustom.class, transactionRepository);
+        checkQueryMethods(TransactionArchiveRepository.class, archiveRepository);
+    }
+
+    @Test
+    public void testExportScanIsReadInIndexOrder() {
+        String plan = explain(RewardsExportService.exportSql(rewardRules));
+        assertTrue(plan.contains(INDEX), "export does not use " + INDEX + ":\n" + plan);
+        // Rows come out of the index already ordered by customer, so the scan streams without a sort
+        assertTrue(plan.contains("index sorted"), "export sorts its rows:\n" + plan);
+
+        // Page ends are found by walking each customer index, which stops at the page's last row
+        for (String[] table : new String[][]{{"TRANSACTION", INDEX}, {"TRANSACTION_ARCHIVE", ARCHIVE_INDEX}}) {
+            String pageEnd = explain(RewardsExportService.pageEndSql(table[0]));
+            assertTrue(pageEnd.contains(table[1]), "export page end does not use " + table[1] + ":\n" + pageEnd);
+            assertTrue(pageEnd.contains("index sorted"), "export page end sorts " + table[0] + ":\n" + pageEnd);
+        }
+        String archived = explain(RewardsExportService.ARCHIVED_CUSTOMERS_SQL);
+        assertTrue(archived.contains(ARCHIVE_INDEX), "export does not use " + ARCHIVE_INDEX + ":\n" + archived);
+        assertFalse(archived.contains("tableScan"), "export scans the whole archive:\n" + archived);
+    }
+
+    @Test
+    public void testArchiveSweepSeeksThePrimaryKey() {
+        String plan = explain(recordSql(TransactionRepository.class, transactionRepository, "findIdsDatedBefore"));
+        // Each page starts at the last ID seen rather than rescanning the key from the beginning
+        assertTrue(Pattern.compile(PRIMARY_KEY + "\\w*: TRANSACTION_ID > \\?").matcher(plan).find(),
+                "sweep does not seek the key:\n" + plan);
+        // and is read in key order, so the page limit stops the scan without a sort
+        assertTrue(plan.contains("index sorted"), "sweep sorts its page:\n" + plan);
+    }
+
+    @Test
+    public void testMostActiveCustomersAreGroupedFromTheIndex() {
+        String plan = explain(recordSql(TransactionRepository.class, transactionRepository,
+                "findMostActiveCustomerIdsSince"));
+        // The date filter is answered from the covering index, which is read in customer order, so the
+        // counts are grouped as the rows stream past instead of in a hash table
+        assertTrue(plan.contains(INDEX), "warm-up ranking does not use " + INDEX + ":\n" + plan);
+        assertTrue(plan.contains("group sorted"), "warm-up ranking groups in a hash table:\n" + plan);
+        assertFalse(plan.contains("tableScan"), "warm-up ranking scans the whole table:\n" + plan);
+    }
+
+    private void checkQueryMethods(Class<?> repositoryType, Object repository) {
+        for (Method method : repositoryType.getDeclaredMethods()) {
+            String name = repositoryType.getSimpleName() + "." + method.getName();
+            List<String> indexes = EXPECTED_INDEXES.get(name);
+            assertNotNull(indexes, name + " has no expected index in TransactionQueryPlanTest");
+
+            String plan = explain(recordSql(name, repository, method));
+            assertFalse(plan.contains("tableScan"), name + " scans the whole table:\n" + plan);
+            for (String index : indexes) {
+                assertTrue(plan.contains(index), name + " does not use " + index + ":\n" + plan);
+            }
+        }
+    }
+
+    private String recordSql(Class<?> repositoryType, Object repository, String methodName) {
+        Method method = Arrays.stream(repositoryType.getDeclaredMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        return recordSql(repositoryType.getSimpleName() + "." + methodName, repository, method);
+    }
+
+    /**
+     * Calls a repository method with sample arguments in a transaction that is rolled back, and returns the one
+     * statement Hibernate sent for it. A call that fails, such as a copy that hits existing keys, has still sent
+     * its statement.
+     */
+    private String recordSql(String name, Object repository, Method method) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            try {
+                method.invoke(repository, Arrays.stream(method.getParameterTypes())
+                        .map(TransactionQueryPlanTest::sampleArgument)
+                        .toArray());
+            } catch (InvocationTargetException e) {
+                // Only the statement is of interest
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        List<String> statements = new ArrayList<>(RecordingStatementInspector.STATEMENTS);
+        assertEquals(1, statements.size(), name + " sent " + statements);
+        return statements.get(0);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                (ResultSet resultSet) -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    private static Object sampleArgument(Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return 7L;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of(7L, 8L, 9L);
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return Timestamp.valueOf("2025-01-01 00:00:00");
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        throw new IllegalArgumentException("No sample argument for " + type);
+    }
+
+    private static void expect(Class<?> repositoryType, String method, String... indexes) {
+        EXPECTED_INDEXES.put(repositoryType.getSimpleName() + "." + method, List.of(indexes));
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.SpringbootApplication.CustomerRewardApplication;
+
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionErrorDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.IngestionReportDTO;
+import com.SpringbootApplication.CustomerRewardApplication.payload.TransactionDTO;
+import com.SpringbootApplication.CustomerRewardApplication.service.RewardsService;
+import com.SpringbootApplication.CustomerRewardApplication.service.TransactionStreamIngestService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TransactionStreamIngestServiceTest {
+
+    private static final String DATE = LocalDate.now().minusMonths(1).withDayOfMonth(3) + "T10:00:00.000+00:00";
+
+    private final RewardsService rewardsService = mock(RewardsService.class);
+
+    @Test
+    public void testCsvQuotedValuesMaySpanLines() throws IOException {
+        String body = "customerId,transactionAmount,transactionDate,note\n"
+                + "1,60.0," + DATE + ",\"first\nsecond\"\n"
+                + "1,abc," + DATE + ",\n"
+                + "\n"
+                + "1,75.0," + DATE + ",\"a \"\"quoted\"\" note\"\n";
+
+        IngestionReportDTO report = ingest(service(65536), body, TransactionStreamIngestService.TEXT_CSV.toString());
+        assertEquals(6, report.getLinesRead());
+        assertEquals(2, report.getSaved());
+        assertEquals(List.of(4L), lines(report));
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Unparseable record"));
+    }
+
+    @Test
+    public void testOversizedRecordsAreRejectedAndReadingGoesOn() throws IOException {
+        String longValue = "{\"customerId\":2,\"transactionAmount\":10.0,\"transactionDate\":\"" + DATE + "\",\"note\":\""
+                + "x".repeat(10_000) + "\"}\n";
+        String manyValues = "{\"customerId\":2,\"transactionAmount\":10.0,\"transactionDate\":\"" + DATE + "\""
+                + ",\"note\":[" + "1,".repeat(1_000) + "1]}\n";
+        String body = record(2) + longValue + record(2) + manyValues + "{\"customerId\":2,\"note\":\"never closed\n"
+                + record(2);
+
+        IngestionReportDTO report = ingest(service(200), body, "application/x-ndjson");
+        assertEquals(6, report.getLinesRead());
+        assertEquals(3, report.getSaved());
+        assertEquals(List.of(2L, 4L, 5L), lines(report));
+        assertTrue(report.getErrors().get(1).getMessage().contains("longer than 200"));
+    }
+
+    @Test
+    public void testFailedBatchRejectsOnlyTheLinesThatFail() throws IOException {
+        when(rewardsService.saveTransactions(anyList())).thenAnswer(invocation -> {
+            List<TransactionDTO> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(transactionDTO -> transactionDTO.getCustomerId() == 13L)) {
+                throw new IllegalStateException("constraint CUSTOMER_13 violated");
+            }
+            return batch;
+        });
+        StringBuilder body = new StringBuilder();
+        for (long customerId = 10; customerId < 17; customerId++) {
+            body.append(record(customerId));
+        }
+
+        IngestionReportDTO report = ingest(service(65536), body.toString(), "application/x-ndjson");
+        assertEquals(6, report.getSaved());
+        assertEquals(List.of(4L), lines(report));
+        assertFalse(report.getErrors().get(0).getMessage().contains("CUSTOMER_13"));
+    }
+
+    private TransactionStreamIngestService service(int maxRecordSize) {
+        return new TransactionStreamIngestService(rewardsService,
+                Validation.buildDefaultValidatorFactory().getValidator(), Jackson2ObjectMapperBuilder.json().build(),
+                maxRecordSize);
+    }
+
+    private static IngestionReportDTO ingest(TransactionStreamIngestService service, String body, String contentType)
+            throws IOException {
+        return service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                MediaType.parseMediaType(contentType));
+    }
+
+    private static String record(long customerId) {
+        return "{\"customerId\":" + customerId + ",\"transactionAmount\":10.0,\"transactionDate\":\"" + DATE + "\"}\n";
+    }
+
+    private static List<Long> lines(IngestionReportDTO report) {
+        return report.getErrors().stream().map(IngestionErrorDTO::getLine).toList();
+    }
+}